@@ -0,0 +1,36 @@
+package com.coze.timer.benchmark;
+
+import com.coze.timer.model.Task;
+
+import java.time.LocalDateTime;
+
+/**
+ * 基准测试使用的任务数据
+ */
+final class BenchmarkTasks {
+
+    private BenchmarkTasks() {
+    }
+
+    /**
+     * 带请求头、请求体和停止条件的高频间隔任务
+     */
+    static Task postTask(String taskId) {
+        Task task = new Task();
+        task.setTaskId(taskId);
+        task.setUserId(1);
+        task.setType("interval");
+        task.setIntervalSeconds(1);
+        task.setHttpEndpoint("http://localhost:8089/api/callback?source=timer");
+        task.setMethod("POST");
+        task.setHeaders("{\"Content-Type\":\"application/json\",\"X-Request-Source\":\"coze-timer\","
+                + "\"Authorization\":\"Bearer 0123456789abcdef\"}");
+        task.setRequestBody("{\"event\":\"tick\",\"payload\":{\"id\":42,\"tags\":[\"a\",\"b\",\"c\"]}}");
+        task.setStopCondition("{\"maxCnt\":300}");
+        task.setStatus("running");
+        task.setNextRunTime(LocalDateTime.now());
+        task.setVersion(0);
+        task.setExecutionCount(0);
+        return task;
+    }
+}
@@ -0,0 +1,78 @@
+package com.coze.timer.benchmark;
+
+import com.coze.timer.executor.ExecutionPlanCache;
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.Task;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建HTTP请求的基准测试
+ * legacyParse为引入执行计划前每次执行都解析任务定义的做法，cachedPlan为通过ExecutionPlanCache取出预先构建的请求
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildRequestBenchmark {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private ObjectMapper objectMapper;
+    private Task task;
+    private ExecutionPlanCache executionPlanCache;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        task = BenchmarkTasks.postTask("benchmark-task");
+        executionPlanCache = new ExecutionPlanCache(objectMapper, new TimerMetrics(new SimpleMeterRegistry()));
+        setField(executionPlanCache, "planCacheSize", 100_000);
+        executionPlanCache.init();
+        executionPlanCache.warm(task);
+    }
+
+    @Benchmark
+    public Request legacyParse() throws Exception {
+        HttpUrl url = HttpUrl.parse(task.getHttpEndpoint());
+        Request.Builder requestBuilder = new Request.Builder().url(url);
+        Map<String, String> headers = objectMapper.readValue(task.getHeaders(),
+                new TypeReference<Map<String, String>>() {});
+        headers.forEach(requestBuilder::addHeader);
+        requestBuilder.post(RequestBody.create(task.getRequestBody(), JSON));
+        return requestBuilder.build();
+    }
+
+    @Benchmark
+    public Request cachedPlan() throws Exception {
+        return executionPlanCache.get(task).getRequest();
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,82 @@
+package com.coze.timer.benchmark;
+
+import com.coze.timer.model.Task;
+import com.coze.timer.util.TaskScheduleUtil;
+import com.cronutils.model.CronType;
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cron下次执行时间计算的基准测试
+ * legacyParse为每次调用都解析表达式并查找时区的旧实现，cached为命中编译缓存的单次计算，
+ * bulk为一批共享少量表达式的任务的批量计算
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CronNextRunTimeBenchmark {
+
+    private static final String[] EXPRESSIONS = {"0 0 * * * ?", "0 */5 * * * ?", "0 0 9 * * MON-FRI", "0 30 2 1 * ?"};
+
+    private CronParser cronParser;
+    private TaskScheduleUtil taskScheduleUtil;
+    private List<Task> tasks;
+    private LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cronParser = new CronParser(CronDefinitionBuilder.instanceDefinitionFor(CronType.SPRING));
+        taskScheduleUtil = new TaskScheduleUtil();
+        now = LocalDateTime.now();
+        tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Task task = new Task();
+            task.setTaskId("cron-" + i);
+            task.setType("cron");
+            task.setCronExpression(EXPRESSIONS[i % EXPRESSIONS.length]);
+            tasks.add(task);
+        }
+    }
+
+    @Benchmark
+    public LocalDateTime legacyParse() {
+        ZonedDateTime zonedNow = ZonedDateTime.now(ZoneId.of("Asia/Shanghai"));
+        ExecutionTime executionTime = ExecutionTime.forCron(cronParser.parse(EXPRESSIONS[0]));
+        return executionTime.nextExecution(zonedNow).map(ZonedDateTime::toLocalDateTime).orElse(null);
+    }
+
+    @Benchmark
+    public LocalDateTime cached() {
+        return taskScheduleUtil.getNextRunTime(EXPRESSIONS[0], now);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(500)
+    public Map<String, LocalDateTime> bulk() {
+        return taskScheduleUtil.getNextRunTimes(tasks, now);
+    }
+}
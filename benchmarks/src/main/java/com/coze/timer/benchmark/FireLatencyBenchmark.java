@@ -0,0 +1,172 @@
+package com.coze.timer.benchmark;
+
+import com.coze.timer.executor.CircuitBreakerRegistry;
+import com.coze.timer.executor.ExecutionPlanCache;
+import com.coze.timer.executor.HttpTaskExecutor;
+import com.coze.timer.executor.ResponseCapture;
+import com.coze.timer.executor.RetryPolicy;
+import com.coze.timer.executor.TaskLogWriter;
+import com.coze.timer.mapper.TaskLogMapper;
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.Task;
+import com.coze.timer.model.dto.TaskResponse;
+import com.coze.timer.service.TaskService;
+import com.coze.timer.util.UuidV7IdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从触发到收到HTTP响应的端到端延迟基准测试
+ * 使用真实的HttpTaskExecutor对进程内HTTP服务发起请求，任务服务和日志表访问替换为内存桩，
+ * 按调度器的方式执行: 每次触发使用认领返回的任务(状态为运行中、下次执行时间已推进、执行次数已累加)，预留名额后提交执行，
+ * 测量的是执行器本身(执行计划、HTTP客户端、结果处理、日志入队)的开销
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class FireLatencyBenchmark {
+
+    @Param({"blocking", "async"})
+    private String mode;
+
+    private StubHttpServer server;
+    private TaskLogWriter taskLogWriter;
+    private HttpTaskExecutor httpTaskExecutor;
+    private final AtomicInteger executionCount = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = new StubHttpServer(8);
+
+        TimerMetrics timerMetrics = new TimerMetrics(new SimpleMeterRegistry());
+        TaskLogMapper taskLogMapper = stub(TaskLogMapper.class);
+        taskLogWriter = new TaskLogWriter(taskLogMapper, timerMetrics);
+        setField(taskLogWriter, "queueCapacity", 100_000);
+        setField(taskLogWriter, "batchSize", 500);
+        setField(taskLogWriter, "flushIntervalMs", 200L);
+        setField(taskLogWriter, "overflowPolicy", "drop");
+        setField(taskLogWriter, "offerTimeoutMs", 0L);
+        taskLogWriter.init();
+
+        ExecutionPlanCache executionPlanCache = new ExecutionPlanCache(new ObjectMapper(), timerMetrics);
+        setField(executionPlanCache, "planCacheSize", 100_000);
+        executionPlanCache.init();
+
+        ResponseCapture responseCapture = new ResponseCapture();
+        setField(responseCapture, "captureMode", "all");
+        setField(responseCapture, "maxBytes", 16384);
+
+        httpTaskExecutor = new HttpTaskExecutor(stub(TaskService.class), taskLogWriter, executionPlanCache, timerMetrics, new RetryPolicy(),
+                new CircuitBreakerRegistry(timerMetrics), responseCapture, new UuidV7IdGenerator());
+        setField(httpTaskExecutor, "httpPoolSize", 200);
+        setField(httpTaskExecutor, "connectTimeout", 5000);
+        setField(httpTaskExecutor, "requestTimeout", 15000);
+        setField(httpTaskExecutor, "rateLimiterEnabled", false);
+        setField(httpTaskExecutor, "executorMode", mode);
+        setField(httpTaskExecutor, "asyncMaxRequests", 2000);
+        setField(httpTaskExecutor, "asyncMaxRequestsPerHost", 200);
+        setField(httpTaskExecutor, "asyncCompletionPoolSize", 16);
+        setField(httpTaskExecutor, "virtualMaxConcurrency", 10_000);
+        setField(httpTaskExecutor, "queueCapacity", 1000);
+        httpTaskExecutor.init();
+    }
+
+    /**
+     * 调度器的触发路径: 预留名额后执行已认领的任务
+     */
+    @Benchmark
+    public LocalDateTime executeClaimedAsync() throws Exception {
+        Task claimed = claimedTask();
+        if (httpTaskExecutor.reserve(1) == 0) {
+            throw new IllegalStateException("执行器已满");
+        }
+        return httpTaskExecutor.executeClaimedAsync(claimed).get();
+    }
+
+    /**
+     * 与TaskService#claimTasks返回的任务一致: 状态为运行中，下次执行时间已推进，执行次数已累加
+     */
+    private Task claimedTask() {
+        Task claimed = BenchmarkTasks.postTask("fire-latency-task");
+        claimed.setHttpEndpoint(server.getUrl());
+        claimed.setStopCondition(null);
+        claimed.setStatus("running");
+        claimed.setNextRunTime(LocalDateTime.now().plusSeconds(claimed.getIntervalSeconds()));
+        claimed.setExecutionCount(executionCount.incrementAndGet());
+        return claimed;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpTaskExecutor.shutdown();
+        taskLogWriter.shutdown();
+        server.stop();
+    }
+
+    /**
+     * 创建接口桩: 状态更新总是成功，批量写日志返回写入条数，其余方法返回默认值
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "updateTaskStatus":
+                    return TaskResponse.builder()
+                            .status("success")
+                            .taskId((String) args[0])
+                            .taskStatus((String) args[1])
+                            .nextRunTime(LocalDateTime.now().plusSeconds(1))
+                            .executionCount(1)
+                            .build();
+                case "insertBatch":
+                    return ((List<?>) args[0]).size();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + "Stub";
+                default:
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == int.class || returnType == long.class) {
+                        return returnType == int.class ? (Object) 0 : (Object) 0L;
+                    }
+                    return returnType == boolean.class ? false : null;
+            }
+        });
+    }
+
+    /**
+     * 设置由Spring注入的配置字段
+     */
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
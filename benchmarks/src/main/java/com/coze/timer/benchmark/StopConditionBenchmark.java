@@ -0,0 +1,62 @@
+package com.coze.timer.benchmark;
+
+import com.coze.timer.executor.ExecutionPlan;
+import com.coze.timer.model.Task;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 停止条件判断的基准测试
+ * legacyParse为每次执行都解析停止条件JSON的旧实现(不含原先统计日志表的COUNT查询)，
+ * compiledPlan为读取执行计划中的maxCnt并与认领时返回的执行次数比较
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StopConditionBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Task task;
+    private ExecutionPlan plan;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        task = BenchmarkTasks.postTask("stop-condition-task");
+        task.setExecutionCount(150);
+        plan = ExecutionPlan.compile(task, objectMapper);
+    }
+
+    @Benchmark
+    public boolean legacyParse() throws Exception {
+        Map<String, Object> stopCondition = objectMapper.readValue(task.getStopCondition(),
+                new TypeReference<Map<String, Object>>() {});
+        Integer maxCount = (Integer) stopCondition.get("maxCnt");
+        return maxCount != null && task.getExecutionCount() >= maxCount;
+    }
+
+    @Benchmark
+    public boolean compiledPlan() {
+        if (!plan.hasStopCondition() || plan.getMaxCount() == null) {
+            return false;
+        }
+        return task.getExecutionCount() != null && task.getExecutionCount() >= plan.getMaxCount();
+    }
+}
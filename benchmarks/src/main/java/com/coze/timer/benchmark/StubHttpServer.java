@@ -0,0 +1,52 @@
+package com.coze.timer.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 基准测试使用的进程内HTTP服务，对任意请求返回固定的200响应，与测试中的MockHttpServer相同
+ */
+final class StubHttpServer {
+
+    private static final byte[] RESPONSE = "{\"status\":\"success\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    StubHttpServer(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[1024];
+                while (in.read(buffer) != -1) {
+                    // 读完请求体，保证连接可以复用
+                }
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RESPONSE);
+            }
+        });
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/callback";
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
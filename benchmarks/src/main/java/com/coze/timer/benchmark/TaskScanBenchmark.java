@@ -0,0 +1,193 @@
+package com.coze.timer.benchmark;
+
+import com.coze.timer.model.Task;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 到期任务扫描的基准测试
+ * 使用H2内存数据库(MySQL兼容模式)和项目中的TaskMapper.xml，测量按实例键集分页加载到期任务(基线)、
+ * 按实例游标流式读取到期任务(ScheduledTasks加载时间轮使用的方式)和按时间扫描(基线)的耗时，
+ * 基线查询已不在生产代码中使用，SQL见BaselineTaskMapper.xml。
+ * H2与MySQL的执行计划不同，结果用于比较SQL和映射改动前后的相对差异，不代表生产库的绝对耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskScanBenchmark {
+
+    private static final long INSTANCE_ID = 1L;
+
+    private static final String BASELINE = "com.coze.timer.benchmark.BaselineTaskMapper.";
+
+    private static final String STREAM_STATEMENT = "com.coze.timer.mapper.TaskMapper.streamDueTasksByInstanceH2";
+
+    @Param({"10000", "100000"})
+    private int taskCount;
+
+    @Param({"500"})
+    private int batchSize;
+
+    private PooledDataSource dataSource;
+    private SqlSessionFactory sqlSessionFactory;
+    private LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:scan" + taskCount + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Configuration configuration = new Configuration(
+                new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        for (String resource : new String[]{"mapper/TaskMapper.xml", "mapper/BaselineTaskMapper.xml"}) {
+            try (InputStream in = Resources.getResourceAsStream(resource)) {
+                new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+            }
+        }
+        // H2不接受MySQL驱动流式读取用的fetchSize(Integer.MIN_VALUE)，复制一份不设置fetchSize的游标语句，SQL和结果映射不变
+        MappedStatement stream = configuration.getMappedStatement("com.coze.timer.mapper.TaskMapper.streamDueTasksByInstance");
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, STREAM_STATEMENT,
+                stream.getSqlSource(), stream.getSqlCommandType())
+                .resultMaps(stream.getResultMaps())
+                .resultSetType(stream.getResultSetType())
+                .build());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+        try (Connection connection = dataSource.getConnection();
+             Reader schema = Resources.getResourceAsReader("h2-schema.sql")) {
+            ScriptRunner runner = new ScriptRunner(connection);
+            runner.setLogWriter(null);
+            runner.runScript(schema);
+        }
+
+        // 一半任务已到期，一半在未来一小时内到期；四分之三分配给当前实例
+        now = LocalDateTime.now().withNano(0);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insertTask = connection.prepareStatement(
+                     "INSERT INTO tasks (task_id, user_id, type, http_endpoint, method, interval_seconds, status, next_run_time) "
+                             + "VALUES (?, 1, 'interval', 'http://localhost/api', 'GET', 60, ?, ?)");
+             PreparedStatement insertAssignment = connection.prepareStatement(
+                     "INSERT INTO task_assignment (task_id, instance_id) VALUES (?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < taskCount; i++) {
+                String taskId = String.format("task-%08d", i);
+                insertTask.setString(1, taskId);
+                insertTask.setString(2, i % 2 == 0 ? "running" : "pending");
+                insertTask.setTimestamp(3, Timestamp.valueOf(now.plusSeconds(i % 2 == 0 ? -(i % 600) : i % 3600)));
+                insertTask.addBatch();
+                insertAssignment.setString(1, taskId);
+                insertAssignment.setLong(2, i % 4 == 0 ? INSTANCE_ID + 1 : INSTANCE_ID);
+                insertAssignment.addBatch();
+                if (i % 1000 == 999) {
+                    insertTask.executeBatch();
+                    insertAssignment.executeBatch();
+                }
+            }
+            insertTask.executeBatch();
+            insertAssignment.executeBatch();
+            connection.commit();
+        }
+    }
+
+    /**
+     * 基线: 按实例键集分页加载全部到期任务，每页一次查询
+     */
+    @Benchmark
+    public int pagedDueTasksForInstance() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("instanceId", INSTANCE_ID);
+        params.put("time", now);
+        params.put("limit", batchSize);
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            int loaded = 0;
+            LocalDateTime afterNextRunTime = null;
+            String afterTaskId = null;
+            while (true) {
+                params.put("afterNextRunTime", afterNextRunTime);
+                params.put("afterTaskId", afterTaskId);
+                List<Task> page = session.selectList(BASELINE + "findDueTasksByInstance", params);
+                loaded += page.size();
+                if (page.size() < batchSize) {
+                    return loaded;
+                }
+                Task last = page.get(page.size() - 1);
+                afterNextRunTime = last.getNextRunTime();
+                afterTaskId = last.getTaskId();
+            }
+        }
+    }
+
+    /**
+     * 按实例游标流式读取全部到期任务，与 TaskService#streamDueTasksForInstance 一致，只执行一次查询
+     */
+    @Benchmark
+    public int streamDueTasksForInstance() throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("instanceId", INSTANCE_ID);
+        params.put("time", now);
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<Task> cursor = session.selectCursor(STREAM_STATEMENT, params)) {
+            int loaded = 0;
+            for (Task task : cursor) {
+                loaded++;
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * 基线: 引入时间轮之前按时间单页扫描待执行任务
+     */
+    @Benchmark
+    public List<Task> findTasksToExecute() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("time", now);
+        params.put("limit", batchSize);
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            return session.selectList(BASELINE + "findTasksToExecute", params);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.forceCloseAll();
+    }
+}
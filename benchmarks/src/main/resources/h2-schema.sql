@@ -0,0 +1,33 @@
+-- 基准测试使用的H2(MySQL兼容模式)表结构，字段与 schema.sql 保持一致
+CREATE TABLE IF NOT EXISTS tasks (
+  task_id VARCHAR(36) PRIMARY KEY,
+  user_id INT NOT NULL,
+  type VARCHAR(20) NOT NULL,
+  http_endpoint VARCHAR(255) NOT NULL,
+  method VARCHAR(10) NOT NULL,
+  headers TEXT,
+  request_body TEXT,
+  interval_seconds INT,
+  cron_expression VARCHAR(100),
+  start_time DATETIME,
+  status VARCHAR(20) NOT NULL DEFAULT 'pending',
+  next_run_time DATETIME,
+  stop_condition TEXT,
+  version INT NOT NULL DEFAULT 0,
+  execution_count INT NOT NULL DEFAULT 0,
+  retry_count INT NOT NULL DEFAULT 0,
+  created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_status_next_run_time ON tasks (status, next_run_time);
+CREATE INDEX IF NOT EXISTS idx_next_run_time ON tasks (next_run_time);
+
+CREATE TABLE IF NOT EXISTS task_assignment (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  task_id VARCHAR(36) NOT NULL,
+  instance_id BIGINT NOT NULL,
+  created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_task_id ON task_assignment (task_id);
+CREATE INDEX IF NOT EXISTS idx_instance_id ON task_assignment (instance_id);
@@ -0,0 +1,35 @@
+package com.coze.timer.config;
+
+import com.coze.timer.sharding.InstanceLease;
+import com.coze.timer.util.IdGenerator;
+import com.coze.timer.util.SnowflakeIdGenerator;
+import com.coze.timer.util.UuidV7IdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * ID生成器配置
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    /**
+     * 按timer.id.type选择ID生成器: uuid7(默认)、snowflake、uuid(随机UUID，兼容旧版本)
+     */
+    @Bean
+    public IdGenerator idGenerator(@Value("${timer.id.type:uuid7}") String type, InstanceLease instanceLease) {
+        switch (type) {
+            case "snowflake":
+                return new SnowflakeIdGenerator(instanceLease::getInstanceId);
+            case "uuid":
+                return () -> UUID.randomUUID().toString();
+            case "uuid7":
+                return new UuidV7IdGenerator();
+            default:
+                throw new IllegalArgumentException("不支持的ID生成器类型: " + type);
+        }
+    }
+}
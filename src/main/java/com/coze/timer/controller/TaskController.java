@@ -3,6 +3,8 @@ package com.coze.timer.controller;
 import com.coze.timer.model.dto.TaskRequest;
 import com.coze.timer.model.dto.TaskResponse;
 import com.coze.timer.service.TaskService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,10 +13,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,9 +38,26 @@ import java.util.Map;
 @Tag(name = "任务管理", description = "定时任务的创建、查询、取消和删除")
 public class TaskController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    
     @Autowired
     private TaskService taskService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * 单次批量创建的最大任务数
+     */
+    @Value("${timer.task.bulk.max-items:100000}")
+    private int bulkMaxItems;
+    
+    /**
+     * 每次交给服务层批量创建的任务数
+     */
+    @Value("${timer.task.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+    
     /**
      * 添加定时任务
      */
@@ -49,6 +76,97 @@ public class TaskController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 批量添加定时任务(JSON数组)
+     */
+    @PostMapping(value = "/tasks/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "批量创建定时任务",
+        description = "请求体为任务创建请求的JSON数组，逐条校验后批量写入，返回与请求顺序一致的逐条结果",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "处理完成，逐条结果见results"),
+            @ApiResponse(responseCode = "400", description = "任务数超过单次上限")
+        }
+    )
+    public ResponseEntity<Map<String, Object>> createTasks(@RequestBody List<TaskRequest> requests) {
+        if (requests.size() > bulkMaxItems) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "单次最多创建" + bulkMaxItems + "个任务");
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(summarize(taskService.createTasks(requests), null));
+    }
+    
+    /**
+     * 批量添加定时任务(NDJSON)
+     * 边读取边按块创建，不需要先把整个请求体解析到内存
+     */
+    @PostMapping(value = "/tasks/batch", consumes = NDJSON)
+    @Operation(
+        summary = "批量创建定时任务(NDJSON)",
+        description = "请求体每行一个任务创建请求，无法解析的行记为失败，超过单次上限的部分不再处理",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "处理完成，逐条结果见results")
+        }
+    )
+    public ResponseEntity<Map<String, Object>> createTasksNdjson(InputStream body) throws IOException {
+        List<TaskResponse> results = new ArrayList<>();
+        List<TaskRequest> chunk = new ArrayList<>(bulkChunkSize);
+        String message = null;
+        int items = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (++items > bulkMaxItems) {
+                message = "单次最多创建" + bulkMaxItems + "个任务，之后的请求未处理";
+                break;
+            }
+            TaskRequest request;
+            try {
+                request = objectMapper.readValue(line, TaskRequest.class);
+            } catch (JsonProcessingException e) {
+                // 先处理之前的请求，保持结果与请求的顺序一致
+                results.addAll(taskService.createTasks(chunk));
+                chunk.clear();
+                TaskResponse error = new TaskResponse();
+                error.setStatus("error");
+                error.setMessage("无法解析第" + items + "行: " + e.getOriginalMessage());
+                results.add(error);
+                continue;
+            }
+            chunk.add(request);
+            if (chunk.size() >= bulkChunkSize) {
+                results.addAll(taskService.createTasks(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(taskService.createTasks(chunk));
+        }
+        return ResponseEntity.ok(summarize(results, message));
+    }
+    
+    private Map<String, Object> summarize(List<TaskResponse> results, String message) {
+        int succeeded = 0;
+        for (TaskResponse result : results) {
+            if ("success".equals(result.getStatus())) {
+                succeeded++;
+            }
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("total", results.size());
+        response.put("succeeded", succeeded);
+        response.put("failed", results.size() - succeeded);
+        response.put("results", results);
+        if (message != null) {
+            response.put("message", message);
+        }
+        return response;
+    }
+    
     /**
      * 查看任务详情
      */
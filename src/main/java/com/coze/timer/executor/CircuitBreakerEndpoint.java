@@ -0,0 +1,59 @@
+package com.coze.timer.executor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 熔断器状态监控端点: /actuator/circuitbreakers
+ * 默认不通过HTTP暴露，需要时加入management.endpoints.web.exposure.include；
+ * 重置操作会改变熔断状态，默认关闭，开启timer.executor.circuit-breaker.reset-enabled后才生效
+ */
+@Slf4j
+@Component
+@Endpoint(id = "circuitbreakers")
+@RequiredArgsConstructor
+public class CircuitBreakerEndpoint {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Value("${timer.executor.circuit-breaker.reset-enabled:false}")
+    private boolean resetEnabled;
+
+    /**
+     * 所有目标主机的熔断器状态
+     */
+    @ReadOperation
+    public Map<String, CircuitBreakerRegistry.Snapshot> circuitBreakers() {
+        return circuitBreakerRegistry.snapshots();
+    }
+
+    /**
+     * 指定目标主机的熔断器状态，不存在时返回404
+     */
+    @ReadOperation
+    public CircuitBreakerRegistry.Snapshot circuitBreaker(@Selector String host) {
+        return circuitBreakerRegistry.snapshot(host);
+    }
+
+    /**
+     * 手动重置指定目标主机的熔断器，未开启重置时不做任何修改
+     *
+     * @return 是否已重置
+     */
+    @DeleteOperation
+    public boolean reset(@Selector String host) {
+        if (!resetEnabled) {
+            log.warn("熔断器重置未开启，忽略对目标主机[{}]的重置请求", host);
+            return false;
+        }
+        return circuitBreakerRegistry.reset(host);
+    }
+}
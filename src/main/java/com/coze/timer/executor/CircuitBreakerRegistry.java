@@ -0,0 +1,295 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.metrics.TimerMetrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按目标主机的熔断器
+ * 每个主机按最近若干次请求的失败率判断是否熔断: 关闭状态下失败率超过阈值即打开，打开期间直接拒绝该主机的任务，
+ * 不再占用工作线程等待连接和请求超时；打开一段时间后进入半开状态，放行少量探测请求，全部成功则关闭，任一失败则重新打开
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CircuitBreakerRegistry {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final TimerMetrics timerMetrics;
+
+    @Value("${timer.executor.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 计算失败率的滑动窗口大小(最近的请求数)
+     */
+    @Value("${timer.executor.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    /**
+     * 窗口内至少有多少次请求才计算失败率
+     */
+    @Value("${timer.executor.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    /**
+     * 触发熔断的失败率(百分比)
+     */
+    @Value("${timer.executor.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    /**
+     * 熔断打开后多久进入半开状态(毫秒)
+     */
+    @Value("${timer.executor.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    /**
+     * 半开状态下放行的探测请求数
+     */
+    @Value("${timer.executor.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    /**
+     * 关闭状态的熔断器空闲多久后回收(秒)
+     */
+    @Value("${timer.executor.circuit-breaker.idle-evict-seconds:600}")
+    private long idleEvictSeconds;
+
+    private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        timerMetrics.gauge("timer.executor.circuit.open", "处于打开或半开状态的熔断器数", breakers,
+                map -> map.values().stream().filter(breaker -> breaker.state != State.CLOSED).count());
+    }
+
+    /**
+     * 检查目标主机是否允许发送请求
+     *
+     * @return 允许时返回0，熔断时返回建议的重试间隔(毫秒)
+     */
+    public long tryAcquire(String host) {
+        if (!enabled) {
+            return 0;
+        }
+        Breaker breaker = breakers.get(host);
+        if (breaker == null) {
+            return 0;
+        }
+        long retryAfterMs = breaker.tryAcquire(System.nanoTime());
+        if (retryAfterMs > 0) {
+            timerMetrics.recordCircuitRejected(host);
+        }
+        return retryAfterMs;
+    }
+
+    /**
+     * 记录一次请求结果
+     *
+     * @param failure 是否失败(网络异常、超时或5xx响应)
+     */
+    public void record(String host, boolean failure) {
+        if (!enabled) {
+            return;
+        }
+        Breaker breaker = failure
+                ? breakers.computeIfAbsent(host, key -> new Breaker(host))
+                : breakers.get(host);
+        if (breaker != null) {
+            breaker.record(failure, System.nanoTime());
+        }
+    }
+
+    /**
+     * 强制关闭目标主机的熔断器
+     *
+     * @return 熔断器不存在时返回false
+     */
+    public boolean reset(String host) {
+        Breaker breaker = breakers.remove(host);
+        if (breaker != null) {
+            log.info("目标主机[{}]的熔断器已被手动重置", host);
+        }
+        return breaker != null;
+    }
+
+    /**
+     * 目标主机熔断器的当前状态，不存在时返回null
+     */
+    public Snapshot snapshot(String host) {
+        Breaker breaker = breakers.get(host);
+        return breaker != null ? breaker.snapshot() : null;
+    }
+
+    /**
+     * 所有熔断器的当前状态，按主机排序
+     */
+    public Map<String, Snapshot> snapshots() {
+        Map<String, Snapshot> snapshots = new TreeMap<>();
+        breakers.forEach((host, breaker) -> snapshots.put(host, breaker.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * 回收长时间没有请求的关闭状态熔断器
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleEvictSeconds);
+        int evicted = 0;
+        for (String host : breakers.keySet()) {
+            boolean[] removed = new boolean[1];
+            breakers.computeIfPresent(host, (key, breaker) -> {
+                if (breaker.isIdleSince(idleBefore)) {
+                    removed[0] = true;
+                    return null;
+                }
+                return breaker;
+            });
+            if (removed[0]) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("回收{}个空闲的熔断器", evicted);
+        }
+    }
+
+    /**
+     * 单个主机的熔断器，状态变更都在对象锁内完成
+     */
+    private final class Breaker {
+        private final String host;
+        /**
+         * 最近请求结果的环形缓冲，true表示失败
+         */
+        private final boolean[] outcomes = new boolean[windowSize];
+        private int index;
+        private int calls;
+        private int failures;
+
+        private volatile State state = State.CLOSED;
+        private long openedAtNanos;
+        private long halfOpenSinceNanos;
+        private int halfOpenIssued;
+        private int halfOpenSucceeded;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private Breaker(String host) {
+            this.host = host;
+        }
+
+        private synchronized long tryAcquire(long nowNanos) {
+            lastUsedNanos = nowNanos;
+            long openNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+            if (state == State.OPEN) {
+                long remaining = openNanos - (nowNanos - openedAtNanos);
+                if (remaining > 0) {
+                    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+                }
+                transitionTo(State.HALF_OPEN, nowNanos);
+            }
+            if (state == State.HALF_OPEN) {
+                // 探测请求可能因限流或认领失败没有真正执行，超过打开时长仍无结果时重新放行
+                long probing = nowNanos - halfOpenSinceNanos;
+                if (halfOpenIssued >= halfOpenCalls && probing < openNanos) {
+                    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(openNanos - probing));
+                }
+                if (halfOpenIssued >= halfOpenCalls) {
+                    halfOpenIssued = 0;
+                    halfOpenSinceNanos = nowNanos;
+                }
+                halfOpenIssued++;
+            }
+            return 0;
+        }
+
+        private synchronized void record(boolean failure, long nowNanos) {
+            lastUsedNanos = nowNanos;
+            switch (state) {
+                case CLOSED:
+                    if (calls == outcomes.length) {
+                        if (outcomes[index]) {
+                            failures--;
+                        }
+                    } else {
+                        calls++;
+                    }
+                    outcomes[index] = failure;
+                    index = (index + 1) % outcomes.length;
+                    if (failure) {
+                        failures++;
+                    }
+                    if (calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls) {
+                        transitionTo(State.OPEN, nowNanos);
+                    }
+                    break;
+                case HALF_OPEN:
+                    if (failure) {
+                        transitionTo(State.OPEN, nowNanos);
+                    } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                        transitionTo(State.CLOSED, nowNanos);
+                    }
+                    break;
+                default:
+                    // 打开前已发出的请求结果不影响熔断状态
+                    break;
+            }
+        }
+
+        private void transitionTo(State newState, long nowNanos) {
+            log.warn("目标主机[{}]的熔断器状态: {} -> {}, 窗口内请求{}次失败{}次", host, state, newState, calls, failures);
+            state = newState;
+            if (newState == State.OPEN) {
+                openedAtNanos = nowNanos;
+            } else if (newState == State.HALF_OPEN) {
+                halfOpenSinceNanos = nowNanos;
+                halfOpenIssued = 0;
+                halfOpenSucceeded = 0;
+            } else {
+                index = 0;
+                calls = 0;
+                failures = 0;
+            }
+        }
+
+        private synchronized boolean isIdleSince(long idleBefore) {
+            return state == State.CLOSED && lastUsedNanos - idleBefore < 0;
+        }
+
+        private synchronized Snapshot snapshot() {
+            int failureRate = calls > 0 ? failures * 100 / calls : 0;
+            return new Snapshot(state, calls, failures, failureRate);
+        }
+    }
+
+    /**
+     * 熔断器状态快照
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Snapshot {
+        private final State state;
+        private final int bufferedCalls;
+        private final int failedCalls;
+        /**
+         * 窗口内失败率(百分比)
+         */
+        private final int failureRate;
+    }
+}
@@ -0,0 +1,234 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.metrics.TimerMetrics;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按目标主机(可选按用户)的限流和并发隔离
+ * 每个主机/用户各有一个令牌桶和最大并发数，首次访问时创建，长时间未使用且没有执行中的请求时回收，
+ * 避免单个响应慢或被限流的目标主机占满执行器、影响其他主机的任务
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EndpointThrottle {
+
+    private final TimerMetrics timerMetrics;
+
+    @Value("${timer.executor.host-limit.enabled:true}")
+    private boolean hostLimitEnabled;
+
+    @Value("${timer.executor.host-limit.capacity:50}")
+    private int hostCapacity;
+
+    @Value("${timer.executor.host-limit.refill-rate:20}")
+    private int hostRefillRate;
+
+    @Value("${timer.executor.host-limit.max-in-flight:50}")
+    private int hostMaxInFlight;
+
+    @Value("${timer.executor.user-limit.enabled:false}")
+    private boolean userLimitEnabled;
+
+    @Value("${timer.executor.user-limit.capacity:100}")
+    private int userCapacity;
+
+    @Value("${timer.executor.user-limit.refill-rate:50}")
+    private int userRefillRate;
+
+    @Value("${timer.executor.user-limit.max-in-flight:100}")
+    private int userMaxInFlight;
+
+    /**
+     * 只因并发已满被拒绝时的重试间隔(毫秒)
+     */
+    @Value("${timer.executor.endpoint-limit.busy-retry-ms:1000}")
+    private long busyRetryMs;
+
+    /**
+     * 限流器空闲多久后回收(秒)
+     */
+    @Value("${timer.executor.endpoint-limit.idle-evict-seconds:600}")
+    private long idleEvictSeconds;
+
+    private final ConcurrentMap<String, Limiter> hostLimiters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Limiter> userLimiters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        timerMetrics.gauge("timer.executor.endpoint.limiters", "当前按主机和用户创建的限流器数",
+                this, throttle -> throttle.hostLimiters.size() + throttle.userLimiters.size());
+    }
+
+    /**
+     * 尝试为一次请求获取目标主机和用户的执行许可
+     *
+     * @return 执行许可，被限流时 {@link Permit#isGranted()} 为false，并给出建议的重试间隔
+     */
+    public Permit tryAcquire(String host, Integer userId) {
+        Limiter hostLimiter = hostLimitEnabled
+                ? hostLimiters.computeIfAbsent(host, key -> new Limiter(hostCapacity, hostRefillRate, hostMaxInFlight))
+                : null;
+        Limiter userLimiter = userLimitEnabled && userId != null
+                ? userLimiters.computeIfAbsent(userId, key -> new Limiter(userCapacity, userRefillRate, userMaxInFlight))
+                : null;
+
+        long retryAfterMs = tryAcquire(hostLimiter);
+        if (retryAfterMs > 0) {
+            timerMetrics.recordRateLimited("host");
+            return Permit.rejected(retryAfterMs);
+        }
+        retryAfterMs = tryAcquire(userLimiter);
+        if (retryAfterMs > 0) {
+            // 用户被限流时归还已占用的主机许可和令牌
+            if (hostLimiter != null) {
+                hostLimiter.release();
+                hostLimiter.bucket.addTokens(1);
+            }
+            timerMetrics.recordRateLimited("user");
+            return Permit.rejected(retryAfterMs);
+        }
+        return new Permit(hostLimiter, userLimiter);
+    }
+
+    /**
+     * 占用一个并发名额并消耗一个令牌
+     *
+     * @return 成功时返回0，否则返回建议的重试间隔(毫秒)
+     */
+    private long tryAcquire(Limiter limiter) {
+        if (limiter == null) {
+            return 0;
+        }
+        limiter.touch();
+        if (limiter.inFlight.incrementAndGet() > limiter.maxInFlight) {
+            limiter.inFlight.decrementAndGet();
+            return busyRetryMs;
+        }
+        ConsumptionProbe probe = limiter.bucket.tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            limiter.inFlight.decrementAndGet();
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill()));
+        }
+        return 0;
+    }
+
+    /**
+     * 回收长时间未使用且没有执行中请求的限流器
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleEvictSeconds);
+        int evicted = evictIdle(hostLimiters, idleBefore) + evictIdle(userLimiters, idleBefore);
+        if (evicted > 0) {
+            log.debug("回收{}个空闲的限流器", evicted);
+        }
+    }
+
+    private <K> int evictIdle(ConcurrentMap<K, Limiter> limiters, long idleBefore) {
+        int evicted = 0;
+        for (K key : limiters.keySet()) {
+            boolean[] removed = new boolean[1];
+            limiters.computeIfPresent(key, (k, limiter) -> {
+                if (limiter.inFlight.get() == 0 && limiter.lastUsedNanos - idleBefore < 0) {
+                    removed[0] = true;
+                    return null;
+                }
+                return limiter;
+            });
+            if (removed[0]) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 单个主机或用户的限流器
+     */
+    private static final class Limiter {
+        private final Bucket bucket;
+        private final int maxInFlight;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private Limiter(int capacity, int refillRate, int maxInFlight) {
+            Bandwidth limit = Bandwidth.classic(capacity, Refill.greedy(refillRate, Duration.ofSeconds(1)));
+            this.bucket = Bucket4j.builder().addLimit(limit).build();
+            this.maxInFlight = maxInFlight;
+        }
+
+        private void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+
+        private void release() {
+            inFlight.decrementAndGet();
+            touch();
+        }
+    }
+
+    /**
+     * 执行许可，请求完成后必须调用 {@link #release()} 归还并发名额
+     */
+    public static final class Permit {
+        private final Limiter hostLimiter;
+        private final Limiter userLimiter;
+        private final boolean granted;
+        private final long retryAfterMs;
+
+        private Permit(Limiter hostLimiter, Limiter userLimiter) {
+            this.hostLimiter = hostLimiter;
+            this.userLimiter = userLimiter;
+            this.granted = true;
+            this.retryAfterMs = 0;
+        }
+
+        private Permit(long retryAfterMs) {
+            this.hostLimiter = null;
+            this.userLimiter = null;
+            this.granted = false;
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        private static Permit rejected(long retryAfterMs) {
+            return new Permit(retryAfterMs);
+        }
+
+        public boolean isGranted() {
+            return granted;
+        }
+
+        /**
+         * 被限流时建议的重试间隔(毫秒)
+         */
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+
+        public void release() {
+            if (hostLimiter != null) {
+                hostLimiter.release();
+            }
+            if (userLimiter != null) {
+                userLimiter.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.model.Task;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 任务执行计划
+ * 预先解析任务的URL、请求头、请求体和停止条件并构建好不可变的HTTP请求，每次执行直接复用，
+ * 不再重复做JSON解析和对象分配
+ */
+public final class ExecutionPlan {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final String taskId;
+    private final String httpEndpoint;
+    private final String method;
+    private final String headersJson;
+    private final String requestBody;
+    private final String stopCondition;
+
+    private final Request request;
+    private final boolean hasStopCondition;
+    private final Integer maxCount;
+
+    private ExecutionPlan(Task task, Request request, boolean hasStopCondition, Integer maxCount) {
+        this.taskId = task.getTaskId();
+        this.httpEndpoint = task.getHttpEndpoint();
+        this.method = task.getMethod();
+        this.headersJson = task.getHeaders();
+        this.requestBody = task.getRequestBody();
+        this.stopCondition = task.getStopCondition();
+        this.request = request;
+        this.hasStopCondition = hasStopCondition;
+        this.maxCount = maxCount;
+    }
+
+    /**
+     * 根据任务定义编译执行计划
+     *
+     * @throws JsonProcessingException  请求头或停止条件不是合法的JSON
+     * @throws IllegalArgumentException URL无效
+     */
+    public static ExecutionPlan compile(Task task, ObjectMapper objectMapper) throws JsonProcessingException {
+        // 解析请求URL
+        HttpUrl url = HttpUrl.parse(task.getHttpEndpoint());
+        if (url == null) {
+            throw new IllegalArgumentException("无效的HTTP URL: " + task.getHttpEndpoint());
+        }
+        Request.Builder requestBuilder = new Request.Builder().url(url);
+
+        // 解析请求头
+        if (task.getHeaders() != null && !task.getHeaders().isEmpty()) {
+            Map<String, String> headers = objectMapper.readValue(task.getHeaders(),
+                    new TypeReference<Map<String, String>>() {});
+            if (headers != null) {
+                Headers.Builder headersBuilder = new Headers.Builder();
+                headers.forEach(headersBuilder::add);
+                requestBuilder.headers(headersBuilder.build());
+            }
+        }
+
+        // 预先编码请求体，字节数组请求体可以被重复发送
+        if ("POST".equalsIgnoreCase(task.getMethod())) {
+            byte[] body = task.getRequestBody() != null
+                    ? task.getRequestBody().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            requestBuilder.post(RequestBody.create(body, JSON));
+        } else {
+            requestBuilder.get();
+        }
+
+        // 解析停止条件
+        boolean hasStopCondition = false;
+        Integer maxCount = null;
+        if (task.getStopCondition() != null && !task.getStopCondition().isEmpty()) {
+            Map<String, Object> stopCondition = objectMapper.readValue(task.getStopCondition(),
+                    new TypeReference<Map<String, Object>>() {});
+            if (stopCondition != null) {
+                hasStopCondition = true;
+                Object maxCnt = stopCondition.get("maxCnt");
+                if (maxCnt instanceof Number) {
+                    maxCount = ((Number) maxCnt).intValue();
+                }
+            }
+        }
+
+        return new ExecutionPlan(task, requestBuilder.build(), hasStopCondition, maxCount);
+    }
+
+    /**
+     * 判断执行计划是否仍与任务定义一致
+     */
+    public boolean matches(Task task) {
+        return Objects.equals(taskId, task.getTaskId())
+                && Objects.equals(httpEndpoint, task.getHttpEndpoint())
+                && Objects.equals(method, task.getMethod())
+                && Objects.equals(headersJson, task.getHeaders())
+                && Objects.equals(requestBody, task.getRequestBody())
+                && Objects.equals(stopCondition, task.getStopCondition());
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * 请求的目标主机
+     */
+    public String getHost() {
+        return request.url().host();
+    }
+
+    /**
+     * 预先构建的HTTP请求，OkHttp的Request不可变，可以被多次提交
+     */
+    public Request getRequest() {
+        return request;
+    }
+
+    public boolean hasStopCondition() {
+        return hasStopCondition;
+    }
+
+    /**
+     * 最大执行次数，未设置时返回null
+     */
+    public Integer getMaxCount() {
+        return maxCount;
+    }
+}
@@ -0,0 +1,87 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.Task;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务执行计划缓存
+ * 按任务ID缓存编译好的执行计划，读取不加锁；任务完成、失败、取消或迁移到其他实例时移除对应的计划，
+ * 调度器每次扫描时再清理不在时间轮中的任务，缓存中只保留当前实例时间轮中的任务。
+ * 缓存条数达到上限后新的计划只编译不缓存，内存占用有上限，缓存大小通过timer.executor.plan-cache.size观察
+ * updated_at在每次状态变更时都会刷新，不适合作为缓存版本，这里改为比较任务定义字段，定义变化时重新编译
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExecutionPlanCache {
+
+    private final ObjectMapper objectMapper;
+    private final TimerMetrics timerMetrics;
+
+    /**
+     * 最多缓存的执行计划数，按单个实例预期承载的任务数设置
+     */
+    @Value("${timer.executor.plan-cache-size:100000}")
+    private int planCacheSize;
+
+    private Map<String, ExecutionPlan> plans;
+
+    @PostConstruct
+    public void init() {
+        plans = new ConcurrentHashMap<>(Math.min(planCacheSize, 1024));
+        timerMetrics.gauge("timer.executor.plan-cache.size", "缓存的执行计划数", plans, Map::size);
+    }
+
+    /**
+     * 获取任务的执行计划，缓存中不存在或已过期时重新编译
+     */
+    public ExecutionPlan get(Task task) throws JsonProcessingException {
+        ExecutionPlan plan = plans.get(task.getTaskId());
+        if (plan != null && plan.matches(task)) {
+            return plan;
+        }
+        plan = ExecutionPlan.compile(task, objectMapper);
+        // 已缓存的任务总是替换为新的计划，新任务只在未达到上限时缓存
+        if (plans.containsKey(task.getTaskId()) || plans.size() < planCacheSize) {
+            plans.put(task.getTaskId(), plan);
+        }
+        return plan;
+    }
+
+    /**
+     * 任务加载时预先编译执行计划，编译失败时只记录日志，执行时再按失败处理
+     */
+    public void warm(Task task) {
+        try {
+            get(task);
+        } catch (Exception e) {
+            log.warn("编译任务[{}]的执行计划失败: {}", task.getTaskId(), e.getMessage());
+        }
+    }
+
+    public void evict(String taskId) {
+        plans.remove(taskId);
+    }
+
+    /**
+     * 只保留指定任务的执行计划
+     */
+    public void retainAll(Set<String> taskIds) {
+        plans.keySet().retainAll(taskIds);
+    }
+
+    public int size() {
+        return plans.size();
+    }
+}
@@ -1,13 +1,12 @@
 package com.coze.timer.executor;
 
-import com.coze.timer.mapper.TaskLogMapper;
+import com.coze.timer.metrics.TimerMetrics;
 import com.coze.timer.model.Task;
 import com.coze.timer.model.TaskLog;
 import com.coze.timer.model.dto.TaskResponse;
 import com.coze.timer.service.TaskService;
+import com.coze.timer.util.IdGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Bucket4j;
@@ -22,13 +21,18 @@ import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
-import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * HTTP任务执行器
@@ -38,9 +42,16 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class HttpTaskExecutor {
     
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+    
     private final TaskService taskService;
-    private final TaskLogMapper taskLogMapper;
-    private final ObjectMapper objectMapper;
+    private final TaskLogWriter taskLogWriter;
+    private final ExecutionPlanCache executionPlanCache;
+    private final TimerMetrics timerMetrics;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final ResponseCapture responseCapture;
+    private final IdGenerator idGenerator;
     
     @Value("${timer.executor.http-pool-size:200}")
     private int httpPoolSize;
@@ -51,6 +62,9 @@ public class HttpTaskExecutor {
     @Value("${timer.executor.request-timeout:15000}")
     private int requestTimeout;
     
+    /**
+     * 连续失败时的最大重试次数
+     */
     @Value("${timer.executor.retry-count:3}")
     private int retryCount;
     
@@ -63,22 +77,92 @@ public class HttpTaskExecutor {
     @Value("${timer.executor.rate-limiter.refill-rate:10}")
     private int rateLimiterRefillRate;
     
+    /**
+     * 执行模式: blocking(工作线程同步等待响应)、async(基于OkHttp回调，工作线程不等待网络I/O)、
+     * virtual(每个任务一个虚拟线程，需要JDK 21)
+     */
+    @Value("${timer.executor.mode:blocking}")
+    private String executorMode;
+    
+    @Value("${timer.executor.async.max-requests:2000}")
+    private int asyncMaxRequests;
+    
+    @Value("${timer.executor.async.max-requests-per-host:200}")
+    private int asyncMaxRequestsPerHost;
+    
+    @Value("${timer.executor.async.completion-pool-size:16}")
+    private int asyncCompletionPoolSize;
+    
+    @Value("${timer.executor.virtual.max-concurrency:10000}")
+    private int virtualMaxConcurrency;
+    
+    /**
+     * 并发执行之外允许排队等待的任务数，已接纳的任务总数达到上限后调度器不再认领新任务
+     */
+    @Value("${timer.executor.queue-capacity:1000}")
+    private int queueCapacity;
+    
     private OkHttpClient httpClient;
     private ExecutorService executorService;
     private Bucket rateLimiter;
+    private boolean asyncMode;
+    private Semaphore concurrencyLimit;
+    
+    /**
+     * 已接纳(预留名额)但尚未执行完成的任务数
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+    private int maxAdmitted;
     
     @PostConstruct
     public void init() {
+        asyncMode = "async".equalsIgnoreCase(executorMode);
+        boolean virtualMode = "virtual".equalsIgnoreCase(executorMode);
+        
         // 初始化HTTP客户端
-        httpClient = new OkHttpClient.Builder()
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
                 .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
                 .readTimeout(requestTimeout, TimeUnit.MILLISECONDS)
                 .writeTimeout(requestTimeout, TimeUnit.MILLISECONDS)
-                .connectionPool(new ConnectionPool(httpPoolSize, 5, TimeUnit.MINUTES))
-                .build();
+                .connectionPool(new ConnectionPool(httpPoolSize, 5, TimeUnit.MINUTES));
+        if (asyncMode) {
+            // 异步模式下并发请求数由Dispatcher控制，不再受工作线程数限制
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(asyncMaxRequests);
+            dispatcher.setMaxRequestsPerHost(asyncMaxRequestsPerHost);
+            clientBuilder.dispatcher(dispatcher);
+            timerMetrics.gauge("timer.http.dispatcher.queued", "等待发送的异步HTTP请求数",
+                    dispatcher, Dispatcher::queuedCallsCount);
+            timerMetrics.gauge("timer.http.dispatcher.running", "正在执行的异步HTTP请求数",
+                    dispatcher, Dispatcher::runningCallsCount);
+        }
+        httpClient = clientBuilder.build();
         
-        // 初始化线程池
-        executorService = Executors.newFixedThreadPool(httpPoolSize);
+        // 初始化线程池，异步模式下只用于写日志、更新状态等回调后的处理
+        if (virtualMode) {
+            executorService = newVirtualThreadPerTaskExecutor();
+        }
+        if (executorService != null) {
+            // 虚拟线程不再受线程池大小限制，用信号量控制同时执行的任务数
+            concurrencyLimit = new Semaphore(virtualMaxConcurrency);
+            maxAdmitted = virtualMaxConcurrency + queueCapacity;
+            timerMetrics.gauge("timer.executor.active", "正在执行的任务数",
+                    concurrencyLimit, semaphore -> virtualMaxConcurrency - semaphore.availablePermits());
+            log.info("HTTP任务执行器模式: virtual，最大并发: {}", virtualMaxConcurrency);
+        } else {
+            // 有界队列: 队列中的任务都已被接纳，容量取接纳上限，名额在任务完成时归还，正常情况下不会触发拒绝
+            int poolSize = asyncMode ? asyncCompletionPoolSize : httpPoolSize;
+            maxAdmitted = (asyncMode ? asyncMaxRequests : httpPoolSize) + queueCapacity;
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(maxAdmitted));
+            executorService = pool;
+            timerMetrics.gauge("timer.executor.queue.depth", "执行线程池中排队等待的任务数",
+                    pool, executor -> executor.getQueue().size());
+            timerMetrics.gauge("timer.executor.active", "执行线程池中的活跃线程数",
+                    pool, ThreadPoolExecutor::getActiveCount);
+            log.info("HTTP任务执行器模式: {}", asyncMode ? "async" : "blocking");
+        }
+        timerMetrics.gauge("timer.executor.admitted", "已接纳尚未完成的任务数", admitted, AtomicInteger::get);
         
         // 初始化令牌桶限流器
         if (rateLimiterEnabled) {
@@ -89,140 +173,344 @@ public class HttpTaskExecutor {
     }
     
     /**
-     * 异步执行HTTP任务
+     * 异步执行已认领的HTTP任务
+     * 任务已通过 {@link TaskService#claimTasks} 置为运行中并推进了下次执行时间，这里不再更新状态。
+     * 调用前必须已通过 {@link #reserve(int)} 为该任务预留名额，执行完成后名额自动归还
+     *
+     * @return 任务的下次执行时间，为null表示任务不再需要调度
      */
-    public CompletableFuture<Void> executeAsync(Task task) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                // 检查是否达到流量限制
-                if (rateLimiterEnabled && !rateLimiter.tryConsume(1)) {
-                    log.warn("任务[{}]被限流，将在下一周期重试", task.getTaskId());
-                    return;
-                }
+    public CompletableFuture<LocalDateTime> executeClaimedAsync(Task task) {
+        CompletableFuture<LocalDateTime> future;
+        try {
+            future = send(task, task.getNextRunTime());
+        } catch (RejectedExecutionException e) {
+            // 名额与队列容量一致时不会发生，任务已认领，按执行失败处理以免丢失
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.whenComplete((nextRunTime, ex) -> release(1));
+    }
+    
+    /**
+     * 预留执行名额，调度器按返回的数量认领任务，超出部分留在数据库中等待下一周期
+     *
+     * @param requested 希望执行的任务数
+     * @return 实际预留的名额，可能小于请求数，执行器已满时为0
+     */
+    public int reserve(int requested) {
+        while (true) {
+            int current = admitted.get();
+            int granted = Math.min(requested, maxAdmitted - current);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (admitted.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+    
+    /**
+     * 归还未使用的执行名额
+     */
+    public void release(int permits) {
+        if (permits > 0) {
+            admitted.addAndGet(-permits);
+        }
+    }
+    
+    /**
+     * 当前可接纳的任务数
+     */
+    public int availableCapacity() {
+        return Math.max(0, maxAdmitted - admitted.get());
+    }
+    
+    /**
+     * 尝试获取一次执行许可，未开启限流时总是成功
+     */
+    public boolean tryAcquire() {
+        if (!rateLimiterEnabled || rateLimiter.tryConsume(1)) {
+            return true;
+        }
+        timerMetrics.recordRateLimited("global");
+        return false;
+    }
+    
+    /**
+     * 归还已获取但未使用的执行许可，例如任务随后被主机、用户限流拒绝或未认领成功
+     */
+    public void refund(int permits) {
+        if (rateLimiterEnabled && permits > 0) {
+            rateLimiter.addTokens(permits);
+        }
+    }
+    
+    /**
+     * 按执行模式发送HTTP请求
+     */
+    private CompletableFuture<LocalDateTime> send(Task task, LocalDateTime nextRunTime) {
+        if (asyncMode) {
+            return enqueue(task, nextRunTime);
+        }
+        if (concurrencyLimit != null) {
+            return CompletableFuture.supplyAsync(() -> executeWithPermit(task, nextRunTime), executorService);
+        }
+        return CompletableFuture.supplyAsync(() -> execute(task, nextRunTime), executorService);
+    }
+    
+    /**
+     * 获取并发许可后同步执行，用于虚拟线程模式，等待许可只会挂起虚拟线程
+     */
+    private LocalDateTime executeWithPermit(Task task, LocalDateTime nextRunTime) {
+        try {
+            concurrencyLimit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return handleFailure(task, nextRunTime, e);
+        }
+        try {
+            return execute(task, nextRunTime);
+        } finally {
+            concurrencyLimit.release();
+        }
+    }
+    
+    /**
+     * 通过反射创建虚拟线程执行器，保持源码在JDK 8下可编译；运行环境低于JDK 21时返回null
+     */
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("当前JDK不支持虚拟线程，执行器回退到blocking模式");
+            return null;
+        }
+    }
+    
+    /**
+     * 同步执行HTTP请求并记录结果，调用线程会等待到响应返回
+     */
+    private LocalDateTime execute(Task task, LocalDateTime nextRunTime) {
+        try {
+            // 构建请求
+            Request request = buildRequest(task);
+            
+            // 记录开始时间
+            LocalDateTime startDateTime = LocalDateTime.now();
+            
+            // 执行HTTP请求
+            try (Response responseFromServer = httpClient.newCall(request).execute()) {
+                // 计算执行耗时
+                long executionTime = ChronoUnit.MILLIS.between(startDateTime, LocalDateTime.now());
                 
-                // 更新任务状态为运行中
-                TaskResponse response = taskService.updateTaskStatus(task.getTaskId(), "running");
-                if (!"success".equals(response.getStatus())) {
-                    log.error("更新任务[{}]状态为运行中失败: {}", task.getTaskId(), response.getMessage());
+                // 解析响应
+                int statusCode = responseFromServer.code();
+                String responseBody = responseCapture.read(task, statusCode, responseFromServer.body());
+                String retryAfter = responseFromServer.header("Retry-After");
+                return handleResponse(task, nextRunTime, statusCode, responseBody, retryAfter, executionTime);
+            }
+        } catch (Exception e) {
+            return handleFailure(task, nextRunTime, e);
+        }
+    }
+    
+    /**
+     * 通过OkHttp回调异步执行HTTP请求
+     * 请求在Dispatcher中排队执行，响应读取完成后把日志和状态处理交给工作线程池，回调线程不访问数据库
+     */
+    private CompletableFuture<LocalDateTime> enqueue(Task task, LocalDateTime nextRunTime) {
+        CompletableFuture<LocalDateTime> future = new CompletableFuture<>();
+        Request request;
+        try {
+            request = buildRequest(task);
+        } catch (Exception e) {
+            completeOnPool(future, () -> handleFailure(task, nextRunTime, e));
+            return future;
+        }
+        
+        long startNanos = System.nanoTime();
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                long executionTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                int statusCode;
+                String responseBody;
+                String retryAfterHeader;
+                try (Response responseFromServer = response) {
+                    statusCode = responseFromServer.code();
+                    responseBody = responseCapture.read(task, statusCode, responseFromServer.body());
+                    retryAfterHeader = responseFromServer.header("Retry-After");
+                } catch (IOException e) {
+                    onFailure(call, e);
                     return;
                 }
-                
-                // 构建请求
-                Request request = buildRequest(task);
-                
-                // 记录开始时间
-                LocalDateTime startDateTime = LocalDateTime.now();
-                
-                // 执行HTTP请求
-                try (Response responseFromServer = httpClient.newCall(request).execute()) {
-                    // 计算执行耗时
-                    long executionTime = ChronoUnit.MILLIS.between(startDateTime, LocalDateTime.now());
-                    
-                    // 解析响应
-                    int statusCode = responseFromServer.code();
-                    String responseBody = responseFromServer.body() != null ? responseFromServer.body().string() : "";
-                    
-                    // 记录执行日志
-                    TaskLog taskLog = TaskLog.builder()
-                            .logId(UUID.randomUUID().toString())
-                            .taskId(task.getTaskId())
-                            .userId(task.getUserId())
-                            .httpStatus(statusCode)
-                            .responseBody(responseBody)
-                            .executionTime((int) executionTime)
-                            .build();
-                    taskLogMapper.insert(taskLog);
-                    
-                    // 检查是否达到停止条件
-                    if (checkStopCondition(task, statusCode, responseBody)) {
-                        TaskResponse completeResponse = taskService.updateTaskStatus(task.getTaskId(), "completed");
-                        if (!"success".equals(completeResponse.getStatus())) {
-                            log.error("更新任务[{}]状态为已完成失败: {}", task.getTaskId(), completeResponse.getMessage());
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                log.error("执行任务[{}]失败", task.getTaskId(), e);
+                int code = statusCode;
+                String body = responseBody;
+                String retryAfter = retryAfterHeader;
+                completeOnPool(future, () -> handleResponse(task, nextRunTime, code, body, retryAfter, executionTime));
+            }
+            
+            @Override
+            public void onFailure(Call call, IOException e) {
+                completeOnPool(future, () -> handleFailure(task, nextRunTime, e));
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * 在工作线程池中执行结果处理并完成future
+     */
+    private void completeOnPool(CompletableFuture<LocalDateTime> future, Supplier<LocalDateTime> handler) {
+        try {
+            executorService.execute(() -> {
                 try {
-                    // 记录失败日志
-                    TaskLog taskLog = TaskLog.builder()
-                            .logId(UUID.randomUUID().toString())
-                            .taskId(task.getTaskId())
-                            .userId(task.getUserId())
-                            .httpStatus(500)
-                            .responseBody("执行异常: " + e.getMessage())
-                            .executionTime(0)
-                            .build();
-                    taskLogMapper.insert(taskLog);
-                    
-                    // 尝试重试
-                    if (handleRetry(task)) {
-                        return;
-                    }
-                    
-                    // 如果不能重试，更新任务状态为失败
-                    TaskResponse failResponse = taskService.updateTaskStatus(task.getTaskId(), "failed");
-                    if (!"success".equals(failResponse.getStatus())) {
-                        log.error("更新任务[{}]状态为失败失败: {}", task.getTaskId(), failResponse.getMessage());
-                    }
-                } catch (Exception ex) {
-                    log.error("记录任务[{}]失败日志异常", task.getTaskId(), ex);
+                    future.complete(handler.get());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+    
+    /**
+     * 处理HTTP响应：记录执行日志并检查停止条件，可重试的错误响应按退避间隔安排重试
+     *
+     * @param retryAfter 响应的Retry-After头
+     * @return 任务的下次执行时间(或重试时间)，达到停止条件或重试耗尽的一次性任务返回null
+     */
+    private LocalDateTime handleResponse(Task task, LocalDateTime nextRunTime, int statusCode,
+                                         String responseBody, String retryAfter, long executionTime) {
+        try {
+            String host = hostOf(task);
+            timerMetrics.recordHttpLatency(host, statusCode, executionTime);
+            circuitBreakerRegistry.record(host, statusCode >= 500);
+            
+            // 记录执行日志
+            TaskLog.TaskLogBuilder logBuilder = TaskLog.builder()
+                    .logId(idGenerator.nextId())
+                    .taskId(task.getTaskId())
+                    .userId(task.getUserId())
+                    .httpStatus(statusCode)
+                    .executionTime((int) executionTime)
+                    .createdAt(LocalDateTime.now(CHINA_ZONE));
+            TaskLog taskLog = responseCapture.apply(logBuilder, responseBody).build();
+            taskLogWriter.submit(taskLog);
+            
+            // 检查是否达到停止条件
+            if (checkStopCondition(task, statusCode, responseBody)) {
+                executionPlanCache.evict(task.getTaskId());
+                TaskResponse completeResponse = taskService.updateTaskStatus(task.getTaskId(), "completed");
+                if (!"success".equals(completeResponse.getStatus())) {
+                    log.error("更新任务[{}]状态为已完成失败: {}", task.getTaskId(), completeResponse.getMessage());
+                }
+                return null;
+            }
+            
+            if (retryPolicy.isRetryable(statusCode)) {
+                LocalDateTime retryTime = handleRetry(task, nextRunTime, retryAfter);
+                if (retryTime != null) {
+                    return retryTime;
                 }
+                // 周期任务重试耗尽后按原计划继续执行，一次性任务置为失败
+                if (nextRunTime == null) {
+                    markFailed(task);
+                }
+                return nextRunTime;
+            }
+            
+            // 执行成功后清零重试次数
+            if (retriesOf(task) > 0) {
+                taskService.resetRetryCount(task.getTaskId());
+                task.setRetryCount(0);
             }
-        }, executorService);
+            return nextRunTime;
+        } catch (Exception e) {
+            return handleFailure(task, nextRunTime, e);
+        }
     }
     
     /**
-     * 构建HTTP请求
+     * 处理执行失败：记录失败日志，不能重试时把任务置为失败
+     *
+     * @return 任务的下次执行时间，任务失败时返回null
      */
-    private Request buildRequest(Task task) throws JsonProcessingException {
-        // 构建请求URL
-        HttpUrl url = HttpUrl.parse(task.getHttpEndpoint());
-        if (url == null) {
-            throw new IllegalArgumentException("无效的HTTP URL: " + task.getHttpEndpoint());
+    private LocalDateTime handleFailure(Task task, LocalDateTime nextRunTime, Exception e) {
+        log.error("执行任务[{}]失败", task.getTaskId(), e);
+        String host = hostOf(task);
+        timerMetrics.recordHttpFailure(host);
+        if (retryPolicy.isRetryable(e)) {
+            circuitBreakerRegistry.record(host, true);
         }
-        
-        // 构建请求构造器
-        Request.Builder requestBuilder = new Request.Builder().url(url);
-        
-        // 添加请求头
-        if (task.getHeaders() != null && !task.getHeaders().isEmpty()) {
-            Map<String, String> headers = objectMapper.readValue(task.getHeaders(), 
-                    new TypeReference<Map<String, String>>() {});
-            headers.forEach(requestBuilder::addHeader);
+        try {
+            // 记录失败日志
+            TaskLog taskLog = TaskLog.builder()
+                    .logId(idGenerator.nextId())
+                    .taskId(task.getTaskId())
+                    .userId(task.getUserId())
+                    .httpStatus(500)
+                    .responseBody("执行异常: " + e.getMessage())
+                    .executionTime(0)
+                    .createdAt(LocalDateTime.now(CHINA_ZONE))
+                    .build();
+            taskLogWriter.submit(taskLog);
+            
+            // 网络异常和超时可以重试，其他异常直接失败
+            if (retryPolicy.isRetryable(e)) {
+                LocalDateTime retryTime = handleRetry(task, nextRunTime, null);
+                if (retryTime != null) {
+                    return retryTime;
+                }
+                // 周期任务重试耗尽后按原计划继续执行，一次性任务置为失败
+                if (nextRunTime != null) {
+                    return nextRunTime;
+                }
+            }
+
+            // 如果不能重试，更新任务状态为失败
+            markFailed(task);
+        } catch (Exception ex) {
+            log.error("记录任务[{}]失败日志异常", task.getTaskId(), ex);
         }
-        
-        // 根据HTTP方法构建请求体
-        if ("POST".equalsIgnoreCase(task.getMethod())) {
-            MediaType mediaType = MediaType.parse("application/json; charset=utf-8");
-            RequestBody requestBody = RequestBody.create(task.getRequestBody(), mediaType);
-            requestBuilder.post(requestBody);
-        } else if ("GET".equalsIgnoreCase(task.getMethod())) {
-            requestBuilder.get();
+        return null;
+    }
+    
+    /**
+     * 构建HTTP请求，直接复用缓存的执行计划中预先构建好的请求
+     */
+    private Request buildRequest(Task task) throws JsonProcessingException {
+        return executionPlanCache.get(task).getRequest();
+    }
+    
+    /**
+     * 任务请求的目标主机，用作监控指标标签
+     */
+    private String hostOf(Task task) {
+        try {
+            return executionPlanCache.get(task).getHost();
+        } catch (Exception e) {
+            return "unknown";
         }
-        
-        return requestBuilder.build();
     }
     
     /**
      * 检查是否达到停止条件
      */
     private boolean checkStopCondition(Task task, int statusCode, String responseBody) {
-        if (task.getStopCondition() == null || task.getStopCondition().isEmpty()) {
-            return false;
-        }
-        
         try {
-            Map<String, Object> stopCondition = objectMapper.readValue(task.getStopCondition(), 
-                    new TypeReference<Map<String, Object>>() {});
+            ExecutionPlan plan = executionPlanCache.get(task);
+            if (!plan.hasStopCondition()) {
+                return false;
+            }
             
-            // 检查最大执行次数
-            if (stopCondition.containsKey("maxCnt")) {
-                Integer maxCount = (Integer) stopCondition.get("maxCnt");
-                int executionCount = taskLogMapper.countByTaskId(task.getTaskId());
-                if (maxCount != null && executionCount >= maxCount) {
-                    return true;
-                }
+            // 检查最大执行次数，执行次数在认领时由数据库原子累加并随任务返回，是本次执行的序号，
+            // 多次执行的结果乱序返回时各自按自己的序号判断
+            Integer maxCount = plan.getMaxCount();
+            if (maxCount != null && task.getExecutionCount() != null && task.getExecutionCount() >= maxCount) {
+                return true;
             }
             
             // TODO: 实现更复杂的停止条件逻辑，如根据响应内容判断
@@ -235,11 +523,46 @@ public class HttpTaskExecutor {
     }
     
     /**
-     * 处理重试逻辑
+     * 处理重试逻辑：按指数退避计算重试时间并写回任务表，重试时间作为下次执行时间交给调度器重新入轮，
+     * 工作线程不等待
+     *
+     * @param retryAfter 响应的Retry-After头，没有时为null
+     * @return 重试时间，周期任务的下次正常执行更早时返回下次执行时间，不能重试时返回null
      */
-    private boolean handleRetry(Task task) {
-        // TODO: 实现指数退避重试逻辑
-        return false;
+    private LocalDateTime handleRetry(Task task, LocalDateTime nextRunTime, String retryAfter) {
+        int attempt = retriesOf(task) + 1;
+        if (attempt > retryCount) {
+            log.warn("任务[{}]已重试{}次，不再重试", task.getTaskId(), retryCount);
+            return null;
+        }
+        
+        LocalDateTime retryTime = retryPolicy.nextRetryTime(attempt, retryAfter);
+        if (nextRunTime != null && !retryTime.isBefore(nextRunTime)) {
+            // 下次正常执行不晚于重试时间，不需要额外安排重试
+            return nextRunTime;
+        }
+        if (!taskService.scheduleRetry(task.getTaskId(), attempt, retryTime)) {
+            log.warn("任务[{}]已结束，取消重试", task.getTaskId());
+            return null;
+        }
+        task.setRetryCount(attempt);
+        log.info("任务[{}]将在{}进行第{}次重试", task.getTaskId(), retryTime, attempt);
+        return retryTime;
+    }
+    
+    private static int retriesOf(Task task) {
+        return task.getRetryCount() != null ? task.getRetryCount() : 0;
+    }
+    
+    /**
+     * 把任务置为失败并清理缓存
+     */
+    private void markFailed(Task task) {
+        executionPlanCache.evict(task.getTaskId());
+        TaskResponse failResponse = taskService.updateTaskStatus(task.getTaskId(), "failed");
+        if (!"success".equals(failResponse.getStatus())) {
+            log.error("更新任务[{}]状态为失败失败: {}", task.getTaskId(), failResponse.getMessage());
+        }
     }
     
     /**
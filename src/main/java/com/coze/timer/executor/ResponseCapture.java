@@ -0,0 +1,142 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.model.Task;
+import com.coze.timer.model.TaskLog;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 执行日志的响应内容记录策略
+ * 只读取响应的前max-bytes字节，其余部分不读取直接随连接关闭丢弃，每次执行的内存占用有上限；
+ * 可以按状态码和执行次数抽样记录，较大的响应内容可以gzip压缩后存入BLOB列
+ */
+@Component
+public class ResponseCapture {
+
+    static final String TRUNCATED_SUFFIX = "...[truncated]";
+
+    /**
+     * 记录方式: all(全部记录)、errors(只记录非2xx响应)、sampled(非2xx全部记录，2xx每success-sample-rate次记录一次)、
+     * none(不记录)
+     */
+    @Value("${timer.log.response.capture:all}")
+    private String captureMode;
+
+    /**
+     * 最多读取的响应字节数
+     */
+    @Value("${timer.log.response.max-bytes:16384}")
+    private int maxBytes;
+
+    /**
+     * sampled模式下成功响应的抽样间隔，每N次执行记录一次
+     */
+    @Value("${timer.log.response.success-sample-rate:10}")
+    private int successSampleRate;
+
+    @Value("${timer.log.response.compress:false}")
+    private boolean compress;
+
+    /**
+     * 达到多少字节才压缩，较小的内容压缩收益不大
+     */
+    @Value("${timer.log.response.compress-min-bytes:1024}")
+    private int compressMinBytes;
+
+    /**
+     * 本次执行是否需要记录响应内容
+     */
+    public boolean shouldCapture(Task task, int statusCode) {
+        boolean success = statusCode >= 200 && statusCode < 300;
+        switch (captureMode) {
+            case "none":
+                return false;
+            case "errors":
+                return !success;
+            case "sampled":
+                if (!success || task.getExecutionCount() == null || successSampleRate <= 1) {
+                    return true;
+                }
+                return task.getExecutionCount() % successSampleRate == 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 按策略读取响应内容，超过上限的部分不读取，截断时在末尾加上标记
+     *
+     * @return 响应内容，不需要记录时返回null
+     */
+    public String read(Task task, int statusCode, ResponseBody body) throws IOException {
+        if (body == null || !shouldCapture(task, statusCode)) {
+            return null;
+        }
+        BufferedSource source = body.source();
+        // 多请求一个字节用于判断是否被截断，读取量不超过max-bytes+1
+        boolean truncated = source.request(maxBytes + 1L);
+        Buffer buffer = source.getBuffer();
+        long size = Math.min(buffer.size(), maxBytes);
+        MediaType contentType = body.contentType();
+        Charset charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+        String text = buffer.readString(size, charset);
+        return truncated ? text + TRUNCATED_SUFFIX : text;
+    }
+
+    /**
+     * 把响应内容写入日志，开启压缩且内容足够大时存为gzip字节
+     */
+    public TaskLog.TaskLogBuilder apply(TaskLog.TaskLogBuilder builder, String responseBody) {
+        if (responseBody == null) {
+            return builder;
+        }
+        byte[] bytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        if (compress && bytes.length >= compressMinBytes) {
+            return builder.responseBodyGzip(gzip(bytes));
+        }
+        return builder.responseBody(responseBody);
+    }
+
+    /**
+     * 还原日志中的响应内容
+     */
+    public static String responseBodyOf(TaskLog taskLog) {
+        if (taskLog.getResponseBodyGzip() == null) {
+            return taskLog.getResponseBody();
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(taskLog.getResponseBodyGzip()))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("解压响应内容失败", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("压缩响应内容失败", e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.coze.timer.executor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 任务执行失败的重试策略
+ * 区分可重试的失败(网络异常、超时、5xx、408、429)和不可重试的失败，
+ * 重试间隔按指数退避计算并加入随机抖动，避免大量任务在同一时刻重试同一个目标主机
+ */
+@Component
+public class RetryPolicy {
+
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+
+    /**
+     * 第一次重试的基础间隔(毫秒)，之后每次翻倍
+     */
+    @Value("${timer.executor.retry.base-delay-ms:1000}")
+    private long baseDelayMs;
+
+    /**
+     * 重试间隔上限(毫秒)
+     */
+    @Value("${timer.executor.retry.max-delay-ms:60000}")
+    private long maxDelayMs;
+
+    /**
+     * 响应状态码是否值得重试
+     */
+    public boolean isRetryable(int statusCode) {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+
+    /**
+     * 执行异常是否值得重试，只有网络I/O异常(包括连接失败和超时)可以重试，
+     * 请求头JSON无效等请求定义错误重试也不会成功
+     */
+    public boolean isRetryable(Throwable e) {
+        return e instanceof IOException && !(e instanceof JsonProcessingException);
+    }
+
+    /**
+     * 第attempt次重试的退避间隔(毫秒)，在指数间隔的一半到全部之间随机取值
+     */
+    public long backoffMillis(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long delay = Math.min(maxDelayMs, baseDelayMs << shift);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * 计算第attempt次重试的执行时间，响应带有Retry-After时不早于服务端要求的时间，
+     * 服务端要求的等待时间同样不超过重试间隔上限，避免任务被过长的Retry-After搁置
+     * 数据库中的执行时间精确到秒，这里向上取整，保证不会早于退避间隔
+     *
+     * @param retryAfter 响应的Retry-After头，没有时为null
+     */
+    public LocalDateTime nextRetryTime(int attempt, String retryAfter) {
+        long delayMs = backoffMillis(attempt);
+        Long retryAfterMs = parseRetryAfter(retryAfter);
+        if (retryAfterMs != null) {
+            delayMs = Math.max(delayMs, Math.min(retryAfterMs, maxDelayMs));
+        }
+        LocalDateTime retryTime = LocalDateTime.now(CHINA_ZONE).plus(delayMs, ChronoUnit.MILLIS);
+        return retryTime.getNano() == 0 ? retryTime : retryTime.withNano(0).plusSeconds(1);
+    }
+
+    /**
+     * 解析Retry-After头，支持秒数和HTTP日期两种格式
+     *
+     * @return 需要等待的毫秒数，无法解析时返回null
+     */
+    Long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return null;
+        }
+        String value = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return Math.min(Math.max(0, seconds), Long.MAX_VALUE / 1000) * 1000;
+        } catch (NumberFormatException e) {
+            // 不是秒数时按HTTP日期解析
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(CHINA_ZONE), date).toMillis());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.mapper.TaskLogMapper;
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.TaskLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务日志异步批量写入器
+ * 执行线程把日志放入有界队列后立即返回，由单独的写入线程按批次大小或时间间隔合并为多行INSERT，
+ * 每个批次只提交一次；队列满时按配置阻塞等待或直接丢弃，并记录丢弃数量。
+ * 批次写入失败(例如任务已被删除导致外键约束失败)时把批次对半拆分后重试，只有确实无法写入的日志计入失败数量
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskLogWriter {
+
+    private final TaskLogMapper taskLogMapper;
+    private final TimerMetrics timerMetrics;
+
+    @Value("${timer.log.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${timer.log.writer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${timer.log.writer.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    /**
+     * 队列满时的处理策略: block(最多等待offer-timeout-ms后丢弃)、drop(立即丢弃)
+     */
+    @Value("${timer.log.writer.overflow-policy:block}")
+    private String overflowPolicy;
+
+    @Value("${timer.log.writer.offer-timeout-ms:1000}")
+    private long offerTimeoutMs;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private BlockingQueue<TaskLog> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        timerMetrics.gauge("timer.log.writer.backlog", "等待写入的任务日志数", queue, BlockingQueue::size);
+        timerMetrics.counter("timer.log.writer.submitted", "已进入队列的任务日志数", submittedCount, AtomicLong::get);
+        timerMetrics.counter("timer.log.writer.written", "已写入的任务日志数", writtenCount, AtomicLong::get);
+        timerMetrics.counter("timer.log.writer.dropped", "因队列已满被丢弃的任务日志数", droppedCount, AtomicLong::get);
+        timerMetrics.counter("timer.log.writer.failed", "拆分重试后仍写入失败的任务日志数", failedCount, AtomicLong::get);
+        running = true;
+        writerThread = new Thread(this::writeLoop, "task-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * 提交一条执行日志
+     *
+     * @return 成功进入队列返回true，因队列已满被丢弃返回false
+     */
+    public boolean submit(TaskLog taskLog) {
+        boolean accepted;
+        if ("drop".equalsIgnoreCase(overflowPolicy)) {
+            accepted = queue.offer(taskLog);
+        } else {
+            try {
+                accepted = queue.offer(taskLog, offerTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        }
+
+        if (accepted) {
+            submittedCount.incrementAndGet();
+        } else if (droppedCount.incrementAndGet() % 1000 == 1) {
+            log.warn("任务日志队列已满，日志被丢弃，累计丢弃: {}", droppedCount.get());
+        }
+        return accepted;
+    }
+
+    private void writeLoop() {
+        List<TaskLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TaskLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 凑满一批或到达刷新间隔后写入
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    TaskLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被中断，继续循环把剩余日志写完
+                running = false;
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<TaskLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            write(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 写入一批日志，失败时对半拆分后分别重试，直到定位到无法写入的单条日志
+     * 多行INSERT是单条语句，失败时整批都没有写入，重试不会产生重复日志
+     */
+    private void write(List<TaskLog> logs) {
+        try {
+            taskLogMapper.insertBatch(logs);
+            writtenCount.addAndGet(logs.size());
+        } catch (Exception e) {
+            if (logs.size() == 1) {
+                failedCount.incrementAndGet();
+                log.error("写入任务[{}]的执行日志失败", logs.get(0).getTaskId(), e);
+                return;
+            }
+            log.warn("批量写入{}条任务日志失败，拆分后重试: {}", logs.size(), e.getMessage());
+            int middle = logs.size() / 2;
+            write(logs.subList(0, middle));
+            write(logs.subList(middle, logs.size()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -26,7 +26,29 @@ public interface InstanceMapper {
     int deleteById(@Param("id") Long id);
     
     /**
-     * 查找失效的实例（超过2分钟未发送心跳的实例）
+     * 查找失效的实例（状态为active但租约过期超过宽限期的实例），按数据库时间判断
      */
-    List<Instance> findInactiveInstances();
+    List<Instance> findInactiveInstances(@Param("graceSeconds") int graceSeconds);
+    
+    /**
+     * 查找存活的实例（状态为active且租约未过期或仍在宽限期内）
+     */
+    List<Instance> findLiveInstances(@Param("graceSeconds") int graceSeconds);
+    
+    /**
+     * 以数据库时间续约租约，维护状态的实例不会被重新激活
+     *
+     * @return 更新的行数，实例不存在或处于维护状态时为0
+     */
+    int renewLease(@Param("id") Long id, @Param("leaseSeconds") int leaseSeconds);
+    
+    /**
+     * 正常关闭时释放租约，其他实例无需等待租约过期即可接管任务
+     */
+    int releaseLease(@Param("id") Long id);
+    
+    /**
+     * 把租约仍然过期的实例标记为失效，返回0表示实例已续约或已被其他实例标记
+     */
+    int expireInstance(@Param("id") Long id, @Param("graceSeconds") int graceSeconds);
 } 
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.coze.timer.mapper;
 
 import com.coze.timer.model.TaskAssignment;
+import com.coze.timer.sharding.ConsistentHashRing;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -16,4 +18,42 @@ public interface TaskAssignmentMapper {
     int update(TaskAssignment assignment);
     
     int deleteByTaskId(@Param("taskId") String taskId);
+    
+    /**
+     * 批量插入任务分配，已分配的任务忽略
+     *
+     * @return 实际插入的行数
+     */
+    int insertBatch(@Param("assignments") List<TaskAssignment> assignments);
+    
+    /**
+     * 按task_id顺序分页查询任务分配
+     *
+     * @param afterTaskId 上一页最后一个taskId，第一页为null
+     */
+    List<TaskAssignment> findPage(@Param("afterTaskId") String afterTaskId, @Param("limit") int limit);
+    
+    /**
+     * 把一批任务迁移到指定实例
+     */
+    int reassign(@Param("taskIds") List<String> taskIds, @Param("instanceId") Long instanceId);
+    
+    /**
+     * 在给定的任务中筛选仍分配给指定实例的任务ID
+     */
+    List<String> findOwnedTaskIds(@Param("instanceId") Long instanceId, @Param("taskIds") Collection<String> taskIds);
+    
+    /**
+     * 把一个实例的全部任务迁移到另一个实例
+     */
+    int reassignInstance(@Param("fromInstanceId") Long fromInstanceId, @Param("toInstanceId") Long toInstanceId);
+    
+    /**
+     * 按哈希区间把一个实例的全部任务分散迁移到多个实例，一条语句完成
+     * 任务哈希值为CRC32(task_id)，用INTERVAL()二分查找所在区间，每行只计算一次哈希
+     *
+     * @param segments 哈希环的区间划分，按上界升序，大于最后一个上界的任务归属第一个区间
+     */
+    int reassignByHashRange(@Param("fromInstanceId") Long fromInstanceId,
+                            @Param("segments") List<ConsistentHashRing.Segment> segments);
 } 
\ No newline at end of file
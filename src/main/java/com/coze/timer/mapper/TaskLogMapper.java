@@ -4,6 +4,7 @@ import com.coze.timer.model.TaskLog;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -17,6 +18,11 @@ public interface TaskLogMapper {
      */
     int insert(TaskLog taskLog);
     
+    /**
+     * 批量插入任务执行日志(单条多行INSERT)
+     */
+    int insertBatch(@Param("taskLogs") List<TaskLog> taskLogs);
+    
     /**
      * 查询任务最新的执行日志
      */
@@ -31,4 +37,26 @@ public interface TaskLogMapper {
      * 统计任务执行次数
      */
     int countByTaskId(String taskId);
+    
+    /**
+     * 删除指定时间之前的日志，每次最多删除limit条
+     */
+    int deleteBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+    
+    /**
+     * 查询task_logs的分区名，按分区顺序排列，未分区时返回空列表
+     */
+    List<String> findPartitionNames();
+    
+    /**
+     * 从MAXVALUE分区中拆分出一个新分区
+     *
+     * @param lessThan 分区上界(不含)，格式yyyy-MM-dd HH:mm:ss
+     */
+    void addPartition(@Param("name") String name, @Param("lessThan") String lessThan);
+    
+    /**
+     * 删除整个分区
+     */
+    void dropPartitions(@Param("names") List<String> names);
 } 
\ No newline at end of file
@@ -3,8 +3,10 @@ package com.coze.timer.mapper;
 import com.coze.timer.model.Task;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,6 +20,11 @@ public interface TaskMapper {
      */
     int insert(Task task);
     
+    /**
+     * 批量插入任务(单条多行INSERT)
+     */
+    int insertBatch(@Param("tasks") List<Task> tasks);
+    
     /**
      * 根据ID查询任务
      */
@@ -25,9 +32,11 @@ public interface TaskMapper {
     
     /**
      * 更新任务状态
+     * version不为null时按版本号比较并更新(CAS)，版本不一致返回0；每次更新版本号加1
      */
     int updateStatus(@Param("taskId") String taskId, @Param("status") String status, 
-                     @Param("nextRunTime") LocalDateTime nextRunTime);
+                     @Param("nextRunTime") LocalDateTime nextRunTime,
+                     @Param("version") Integer version);
     
     /**
      * 删除任务
@@ -35,11 +44,36 @@ public interface TaskMapper {
     int deleteById(String taskId);
     
     /**
-     * 查询指定时间之前需要执行的任务
+     * 按下次执行时间顺序流式查询分配给指定实例的到期任务
+     * 必须在事务中遍历，遍历结束前同一连接不能执行其他语句
+     */
+    Cursor<Task> streamDueTasksByInstance(@Param("instanceId") Long instanceId, @Param("time") LocalDateTime time);
+    
+    /**
+     * 锁定到期任务(SELECT ... FOR UPDATE SKIP LOCKED)，已被其他事务锁定的行直接跳过
+     * taskIds可为null，用于指定任务
+     */
+    List<Task> lockDueTasks(@Param("taskIds") Collection<String> taskIds,
+                            @Param("time") LocalDateTime time,
+                            @Param("limit") int limit);
+    
+    /**
+     * 批量推进已认领的任务：状态置为running，并写入各自的下次执行时间
+     */
+    int advanceClaimedTasks(@Param("tasks") List<Task> tasks);
+    
+    /**
+     * 批量推迟仍处于到期状态的任务，写入各自新的下次执行时间；已被认领或已结束的任务不受影响
+     */
+    int deferTasks(@Param("tasks") List<Task> tasks, @Param("time") LocalDateTime time);
+    
+    /**
+     * 更新未结束任务的重试次数，nextRunTime不为空时同时把下次执行时间改为重试时间
+     *
+     * @return 更新的行数，任务已结束或不存在时为0
      */
-    List<Task> findTasksToExecute(@Param("taskId") String taskId, 
-                                 @Param("time") LocalDateTime time, 
-                                 @Param("limit") int limit);
+    int updateRetry(@Param("taskId") String taskId, @Param("retryCount") int retryCount,
+                    @Param("nextRunTime") LocalDateTime nextRunTime);
     
     /**
      * 按用户ID查询任务列表
@@ -0,0 +1,124 @@
+package com.coze.timer.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 调度系统监控指标
+ * 统一定义指标名称和标签，各组件通过这里记录调度延迟、HTTP耗时、扫描耗时等指标，
+ * 队列深度、活跃线程数等状态由各组件在初始化时注册为Gauge
+ */
+@Component
+@RequiredArgsConstructor
+public class TimerMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 记录任务实际触发时间与计划执行时间的差值
+     */
+    public void recordFireLag(Duration lag) {
+        Timer.builder("timer.task.fire.lag")
+                .description("任务实际触发时间与计划执行时间之差")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry)
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    /**
+     * 记录收到响应的HTTP请求耗时
+     */
+    public void recordHttpLatency(String host, int statusCode, long millis) {
+        httpTimer(host, statusCode / 100 + "xx").record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录执行失败(未收到响应或处理结果失败)的HTTP请求
+     */
+    public void recordHttpFailure(String host) {
+        Counter.builder("timer.http.failures")
+                .description("执行失败的HTTP请求数")
+                .tag("host", host)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次任务扫描的耗时
+     */
+    public void recordScan(long nanos, int loadedTasks) {
+        Timer.builder("timer.scan.duration")
+                .description("扫描并加载到期任务的耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("timer.scan.loaded")
+                .description("扫描加载到时间轮的任务数")
+                .register(meterRegistry)
+                .increment(loadedTasks);
+    }
+
+    /**
+     * 记录被限流的任务
+     *
+     * @param scope 限流范围: global(全局)、host(目标主机)、user(用户)
+     */
+    public void recordRateLimited(String scope) {
+        Counter.builder("timer.executor.rate.limited")
+                .description("被限流推迟执行的任务数")
+                .tag("scope", scope)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录因目标主机熔断被拒绝的任务
+     */
+    public void recordCircuitRejected(String host) {
+        Counter.builder("timer.executor.circuit.rejected")
+                .description("因目标主机熔断被推迟执行的任务数")
+                .tag("host", host)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 注册反映组件当前状态的Gauge
+     */
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册由组件自身累加的计数器
+     */
+    public <T> void counter(String name, String description, T target, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, target, value)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private Timer httpTimer(String host, String outcome) {
+        return Timer.builder("timer.http.latency")
+                .description("任务HTTP请求耗时")
+                .tag("host", host)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
@@ -11,6 +11,10 @@ public class Instance {
     private Integer port;
     private String status;
     private LocalDateTime lastHeartbeat;
+    /**
+     * 租约到期时间(数据库时间)，实例定期续约，过期超过宽限期视为失效
+     */
+    private LocalDateTime leaseExpiresAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 } 
\ No newline at end of file
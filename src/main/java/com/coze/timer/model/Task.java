@@ -75,6 +75,21 @@ public class Task {
      */
     private String stopCondition;
     
+    /**
+     * 版本号，每次状态变更加1，用于乐观并发控制
+     */
+    private Integer version;
+    
+    /**
+     * 累计执行次数，每次认领执行时加1
+     */
+    private Integer executionCount;
+    
+    /**
+     * 当前连续失败后已重试的次数，执行成功后清零
+     */
+    private Integer retryCount;
+    
     /**
      * 创建时间
      */
@@ -41,6 +41,11 @@ public class TaskLog {
      */
     private String responseBody;
     
+    /**
+     * gzip压缩的响应内容，开启压缩时代替responseBody
+     */
+    private byte[] responseBodyGzip;
+    
     /**
      * 执行耗时(毫秒)
      */
@@ -22,8 +22,8 @@ public class TaskResponse {
     /**
      * 结果状态
      */
-    @Schema(description = "任务状态: pending、running、completed、failed、stopped", example = "running", 
-            allowableValues = {"pending", "running", "completed", "failed", "stopped"})
+    @Schema(description = "任务状态: pending、running、completed、failed、stopped；状态更新时为success、error或conflict(版本冲突)", example = "running", 
+            allowableValues = {"pending", "running", "completed", "failed", "stopped", "success", "error", "conflict"})
     private String status;
     
     /**
@@ -66,6 +66,18 @@ public class TaskResponse {
     @Schema(description = "创建时间", example = "2025-04-22T09:59:00Z")
     private LocalDateTime createdAt;
     
+    /**
+     * 任务版本号，status为conflict时为数据库中的当前版本
+     */
+    @Schema(description = "任务版本号", example = "3")
+    private Integer version;
+    
+    /**
+     * 累计执行次数
+     */
+    @Schema(description = "累计执行次数", example = "12")
+    private Integer executionCount;
+    
     /**
      * 消息
      */
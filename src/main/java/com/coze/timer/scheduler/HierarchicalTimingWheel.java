@@ -0,0 +1,242 @@
+package com.coze.timer.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 按毫秒/秒/分钟/小时四层组织定时条目，插入和取消均为O(1)，
+ * 每次推进只处理到期的槽位，高层槽位到期时条目降级到低层，超过一天的条目暂存在溢出集合中。
+ * 所有方法线程安全，到期条目由 {@link #advance(long)} 返回，由调用方负责执行。
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final List<Tier> tiers;
+
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+
+    /**
+     * 已到期、等待下一次推进时返回的条目
+     */
+    private final Set<Entry<T>> expired = new LinkedHashSet<>();
+
+    /**
+     * 超出最高层范围的条目
+     */
+    private final Set<Entry<T>> overflow = new HashSet<>();
+
+    /**
+     * @param tickMs  最底层的槽位精度(毫秒)，必须能整除1000
+     * @param startMs 时间轮起始时间(毫秒时间戳)
+     */
+    public HierarchicalTimingWheel(long tickMs, long startMs) {
+        if (tickMs <= 0 || 1000 % tickMs != 0) {
+            throw new IllegalArgumentException("tickMs必须能整除1000: " + tickMs);
+        }
+        this.tiers = new ArrayList<>(4);
+        tiers.add(new Tier(tickMs, (int) (1000 / tickMs), startMs));
+        tiers.add(new Tier(1000L, 60, startMs));
+        tiers.add(new Tier(60_000L, 60, startMs));
+        tiers.add(new Tier(3_600_000L, 24, startMs));
+    }
+
+    /**
+     * 添加或替换定时条目
+     *
+     * @param key        条目唯一标识，相同key的旧条目会被替换
+     * @param deadlineMs 到期时间(毫秒时间戳)
+     * @param payload    到期时返回的数据
+     */
+    public synchronized void schedule(String key, long deadlineMs, T payload) {
+        Entry<T> previous = entries.remove(key);
+        if (previous != null) {
+            previous.bucket.remove(previous);
+        }
+        // 向上取整到槽位边界，保证条目不会早于到期时间触发
+        long tickMs = tiers.get(0).tickMs;
+        Entry<T> entry = new Entry<>(key, deadlineMs, deadlineMs + tickMs - 1, payload);
+        entries.put(key, entry);
+        place(entry);
+    }
+
+    /**
+     * 取消定时条目
+     *
+     * @return 条目存在并被取消时返回true
+     */
+    public synchronized boolean cancel(String key) {
+        Entry<T> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.bucket.remove(entry);
+        return true;
+    }
+
+    /**
+     * 只保留指定key的条目，其余全部取消
+     *
+     * @return 被取消的条目数
+     */
+    public synchronized int retainAll(Set<String> keys) {
+        List<String> removed = new ArrayList<>();
+        for (String key : entries.keySet()) {
+            if (!keys.contains(key)) {
+                removed.add(key);
+            }
+        }
+        for (String key : removed) {
+            cancel(key);
+        }
+        return removed.size();
+    }
+
+    /**
+     * 查询条目的到期时间
+     *
+     * @return 到期时间(毫秒时间戳)，条目不存在时返回null
+     */
+    public synchronized Long deadlineOf(String key) {
+        Entry<T> entry = entries.get(key);
+        return entry != null ? entry.deadline : null;
+    }
+
+    /**
+     * 当前所有条目的键的快照
+     */
+    public synchronized Set<String> keys() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 推进时钟到指定时间，返回所有已到期的条目
+     */
+    public synchronized List<T> advance(long nowMs) {
+        Tier lowest = tiers.get(0);
+        if (entries.isEmpty()) {
+            // 空轮直接对齐时钟，避免长时间空闲后逐槽追赶
+            for (Tier tier : tiers) {
+                tier.currentTime = Math.max(tier.currentTime, nowMs - nowMs % tier.tickMs);
+            }
+            return Collections.emptyList();
+        }
+
+        List<Set<Entry<T>>> due = new ArrayList<>(tiers.size());
+        while (lowest.currentTime + lowest.tickMs <= nowMs) {
+            long time = lowest.currentTime + lowest.tickMs;
+            boolean topTicked = false;
+
+            // 先推进所有层的时钟，再自顶向下降级到期槽位中的条目
+            due.clear();
+            for (int i = tiers.size() - 1; i >= 0; i--) {
+                Tier tier = tiers.get(i);
+                long tierTime = time - time % tier.tickMs;
+                if (tierTime != tier.currentTime) {
+                    tier.currentTime = tierTime;
+                    due.add(tier.bucketFor(tierTime));
+                    topTicked |= i == tiers.size() - 1;
+                }
+            }
+            for (Set<Entry<T>> bucket : due) {
+                if (bucket.isEmpty()) {
+                    continue;
+                }
+                List<Entry<T>> drained = new ArrayList<>(bucket);
+                bucket.clear();
+                for (Entry<T> entry : drained) {
+                    place(entry);
+                }
+            }
+            if (topTicked && !overflow.isEmpty()) {
+                List<Entry<T>> drained = new ArrayList<>(overflow);
+                overflow.clear();
+                for (Entry<T> entry : drained) {
+                    place(entry);
+                }
+            }
+        }
+
+        if (expired.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>(expired.size());
+        for (Entry<T> entry : expired) {
+            entries.remove(entry.key);
+            result.add(entry.payload);
+        }
+        expired.clear();
+        return result;
+    }
+
+    private void place(Entry<T> entry) {
+        Tier lowest = tiers.get(0);
+        if (entry.expiration < lowest.currentTime + lowest.tickMs) {
+            entry.bucket = expired;
+            expired.add(entry);
+            return;
+        }
+        for (Tier tier : tiers) {
+            if (entry.expiration < tier.currentTime + tier.interval) {
+                Set<Entry<T>> bucket = tier.bucketFor(entry.expiration);
+                entry.bucket = bucket;
+                bucket.add(entry);
+                return;
+            }
+        }
+        entry.bucket = overflow;
+        overflow.add(entry);
+    }
+
+    /**
+     * 时间轮中的一层
+     */
+    private final class Tier {
+        private final long tickMs;
+        private final long interval;
+        private final List<Set<Entry<T>>> buckets;
+        private long currentTime;
+
+        private Tier(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.interval = tickMs * wheelSize;
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new HashSet<>());
+            }
+            this.currentTime = startMs - startMs % tickMs;
+        }
+
+        private Set<Entry<T>> bucketFor(long time) {
+            return buckets.get((int) ((time / tickMs) % buckets.size()));
+        }
+    }
+
+    /**
+     * 定时条目
+     */
+    private static final class Entry<T> {
+        private final String key;
+        private final long deadline;
+        private final long expiration;
+        private final T payload;
+        private Set<Entry<T>> bucket;
+
+        private Entry(String key, long deadline, long expiration, T payload) {
+            this.key = key;
+            this.deadline = deadline;
+            this.expiration = expiration;
+            this.payload = payload;
+        }
+    }
+}
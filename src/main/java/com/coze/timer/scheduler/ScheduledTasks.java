@@ -1,12 +1,10 @@
 package com.coze.timer.scheduler;
 
-import com.coze.timer.executor.HttpTaskExecutor;
-import com.coze.timer.mapper.InstanceMapper;
+import com.coze.timer.metrics.TimerMetrics;
 import com.coze.timer.mapper.TaskAssignmentMapper;
-import com.coze.timer.model.Instance;
-import com.coze.timer.model.Task;
-import com.coze.timer.model.TaskAssignment;
 import com.coze.timer.service.TaskService;
+import com.coze.timer.sharding.InstanceLease;
+import com.coze.timer.sharding.ShardManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,147 +13,115 @@ import org.springframework.stereotype.Component;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Component
 @Slf4j
 public class ScheduledTasks {
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+
     @Autowired
     private TaskService taskService;
 
     @Autowired
-    private HttpTaskExecutor httpTaskExecutor;
+    private WheelTaskScheduler wheelTaskScheduler;
 
     @Autowired
-    private InstanceMapper instanceMapper;
+    private InstanceLease instanceLease;
 
     @Autowired
     private TaskAssignmentMapper taskAssignmentMapper;
 
+    @Autowired
+    private ShardManager shardManager;
+
+    @Autowired
+    private TimerMetrics timerMetrics;
+
     @Value("${timer.instance.name}")
     private String instanceName;
 
-    @Scheduled(fixedRate = 1000)
+    @Value("${timer.scheduler.load-ahead-seconds:30}")
+    private long loadAheadSeconds;
+
+    @Value("${timer.scheduler.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 扫描分配给当前实例的任务并加载到时间轮
+     * 任务的触发由时间轮负责，这里只刷新任务归属和即将到期的任务
+     */
+    @Scheduled(fixedDelayString = "${timer.scheduler.refresh-interval:5000}")
     public void scanTasks() {
         log.debug("开始扫描任务...");
+        long startNanos = System.nanoTime();
+        int loaded = 0;
         try {
-            // 获取当前实例信息
-            Instance currentInstance = instanceMapper.findByName(instanceName);
-            log.debug("当前实例信息: {}", currentInstance);
-
-            if (currentInstance == null || !"active".equals(currentInstance.getStatus())) {
-                log.warn("当前实例[{}]不存在或未激活", instanceName);
+            // 没有有效租约时其他实例可能已接管任务，清空时间轮
+            if (!instanceLease.isHeld()) {
+                log.warn("当前实例[{}]未持有租约", instanceName);
+                wheelTaskScheduler.retainOwned(Collections.<String>emptySet());
                 return;
             }
+            Long instanceId = instanceLease.getInstanceId();
 
-            // 获取分配给当前实例的任务
-            List<TaskAssignment> assignments = taskAssignmentMapper.findByInstanceId(currentInstance.getId());
-            log.debug("分配给当前实例的任务数量: {}", assignments.size());
-
-            if (assignments.isEmpty()) {
-                log.debug("当前实例[{}]没有分配的任务", instanceName);
-                return;
+            // 只核对时间轮中任务的归属，不加载当前实例的全部分配
+            int removed = removeUnowned(instanceId);
+            if (removed > 0) {
+                log.info("从时间轮移除{}个不再归属当前实例的任务", removed);
             }
 
-            for (TaskAssignment assignment : assignments) {
-                // 获取待执行的任务
-                List<Task> tasksToExecute = taskService.getTasksToExecute(assignment.getTaskId(), 50);
-                log.debug("待执行任务数量: {}", tasksToExecute.size());
-
-                if (!tasksToExecute.isEmpty()) {
-                    log.info("扫描到{}个待执行任务", tasksToExecute.size());
-
-                    // 提交任务到执行器
-                    for (Task task : tasksToExecute) {
-                        httpTaskExecutor.executeAsync(task);
-                    }
-                }
+            // 按下次执行时间顺序流式加载预读窗口内到期的任务，边读边入轮，最早到期的任务无需等待全部加载完成
+            LocalDateTime horizon = LocalDateTime.now(CHINA_ZONE).plusSeconds(loadAheadSeconds);
+            loaded = taskService.streamDueTasksForInstance(instanceId, horizon, wheelTaskScheduler::schedule);
+            if (loaded > 0) {
+                log.info("加载{}个待执行任务到时间轮，时间轮任务总数: {}", loaded, wheelTaskScheduler.size());
             }
+            wheelTaskScheduler.sweepPlans();
         } catch (Exception e) {
             log.error("扫描任务过程中发生异常", e);
+        } finally {
+            timerMetrics.recordScan(System.nanoTime() - startNanos, loaded);
         }
         log.debug("扫描任务完成");
     }
 
     /**
-     * 更新实例心跳
-     * 每分钟执行一次
+     * 移除时间轮中已不再分配给当前实例的任务，按批次查询归属
+     *
+     * @return 被移除的任务数
      */
-//    @Scheduled(fixedRate = 60000)
-//    //@SchedulerLock(name = "updateHeartbeat", lockAtLeastFor = "PT30S")
-//    public void updateHeartbeat() {
-//        try {
-//            Instance currentInstance = instanceMapper.findByName(instanceName);
-//            if (currentInstance != null) {
-//                instanceMapper.updateHeartbeat(currentInstance.getId());
-//                log.debug("更新实例[{}]心跳成功", instanceName);
-//            } else {
-//                log.warn("实例[{}]不存在，无法更新心跳", instanceName);
-//            }
-//        } catch (Exception e) {
-//            log.error("更新实例心跳失败", e);
-//        }
-//    }
+    private int removeUnowned(Long instanceId) {
+        List<String> scheduled = new ArrayList<>(wheelTaskScheduler.scheduledTaskIds());
+        Set<String> unowned = new HashSet<>(scheduled);
+        for (int from = 0; from < scheduled.size(); from += batchSize) {
+            List<String> batch = scheduled.subList(from, Math.min(from + batchSize, scheduled.size()));
+            unowned.removeAll(taskAssignmentMapper.findOwnedTaskIds(instanceId, batch));
+        }
+        return wheelTaskScheduler.cancelAll(unowned);
+    }
 
     /**
      * 分配任务到实例
-     * 每5秒执行一次
+     * 每5秒执行一次，先接管租约过期实例的任务，再按一致性哈希环把未分配的任务分配给归属实例，
+     * 实例变化时迁移归属发生变化的任务
      */
     @Scheduled(fixedRate = 5000)
     @SchedulerLock(name = "assignTasks", lockAtLeastFor = "PT3S")
     public void assignTasks() {
         try {
-            // 获取当前实例信息
-            Instance currentInstance = instanceMapper.findByName(instanceName);
-            if (currentInstance == null || !"active".equals(currentInstance.getStatus())) {
+            if (!instanceLease.isHeld()) {
                 return;
             }
 
-            // 获取未分配的任务
-            List<Task> unassignedTasks = taskService.getUnassignedTasks(50);
-            if (!unassignedTasks.isEmpty()) {
-                log.info("发现{}个未分配的任务", unassignedTasks.size());
-
-                // 分配任务到当前实例
-                for (Task task : unassignedTasks) {
-                    TaskAssignment assignment = new TaskAssignment();
-                    assignment.setTaskId(task.getTaskId());
-                    assignment.setInstanceId(currentInstance.getId());
-                    assignment.setCreatedAt(LocalDateTime.now());
-                    assignment.setUpdatedAt(LocalDateTime.now());
-
-                    taskAssignmentMapper.insert(assignment);
-                    log.info("任务[{}]已分配到实例[{}]", task.getTaskId(), instanceName);
-                }
-            }
-
-            // 检查并重新分配失效实例的任务
-            List<Instance> inactiveInstances = instanceMapper.findInactiveInstances();
-            for (Instance inactiveInstance : inactiveInstances) {
-                List<TaskAssignment> assignments = taskAssignmentMapper.findByInstanceId(inactiveInstance.getId());
-                if (!assignments.isEmpty()) {
-                    log.info("发现实例[{}]有{}个未完成的任务需要重新分配", 
-                            inactiveInstance.getInstanceName(), assignments.size());
-                    
-                    for (TaskAssignment assignment : assignments) {
-                        // 删除旧的任务分配
-                        taskAssignmentMapper.deleteByTaskId(assignment.getTaskId());
-                        
-                        // 创建新的任务分配
-                        TaskAssignment newAssignment = new TaskAssignment();
-                        newAssignment.setTaskId(assignment.getTaskId());
-                        newAssignment.setInstanceId(currentInstance.getId());
-                        newAssignment.setCreatedAt(LocalDateTime.now());
-                        newAssignment.setUpdatedAt(LocalDateTime.now());
-                        
-                        taskAssignmentMapper.insert(newAssignment);
-                        log.info("任务[{}]已从失效实例[{}]重新分配到实例[{}]", 
-                                assignment.getTaskId(), 
-                                inactiveInstance.getInstanceName(), 
-                                instanceName);
-                    }
-                }
-            }
+            shardManager.failover();
+            shardManager.assignUnassigned();
+            shardManager.rebalanceIfNeeded();
         } catch (Exception e) {
             log.error("分配任务过程中发生异常", e);
         }
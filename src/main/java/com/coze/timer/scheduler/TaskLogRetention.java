@@ -0,0 +1,188 @@
+package com.coze.timer.scheduler;
+
+import com.coze.timer.mapper.TaskLogMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务日志的分区维护和过期清理
+ * partitioned模式下task_logs按created_at范围分区，提前创建未来的分区，保留期外的分区整体删除，不需要逐行扫描删除；
+ * plain模式下按created_at索引分批删除过期日志
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskLogRetention {
+
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+    private static final String MAX_PARTITION = "pmax";
+    /**
+     * 分区以周期的起始日期命名，按月分区时为每月1日
+     */
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd 00:00:00");
+
+    private final TaskLogMapper taskLogMapper;
+
+    /**
+     * 日志存储方式: plain(普通表)、partitioned(按时间分区，表结构见db/task_logs_partitioned.sql)
+     */
+    @Value("${timer.log.storage:plain}")
+    private String storage;
+
+    /**
+     * 分区粒度: day、month
+     */
+    @Value("${timer.log.partition.granularity:day}")
+    private String granularity;
+
+    /**
+     * 提前创建的分区数
+     */
+    @Value("${timer.log.partition.premake:3}")
+    private int premake;
+
+    /**
+     * 日志保留天数，默认0不清理，升级后不会在未配置的情况下删除已有日志
+     */
+    @Value("${timer.log.retention.days:0}")
+    private int retentionDays;
+
+    /**
+     * plain模式下每批删除的日志数
+     */
+    @Value("${timer.log.retention.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    /**
+     * 分区维护和过期清理，启动后执行一次，之后每小时执行一次
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${timer.log.retention.interval-ms:3600000}")
+    @SchedulerLock(name = "taskLogRetention", lockAtMostFor = "PT30M")
+    public void maintain() {
+        try {
+            LocalDate today = LocalDate.now(CHINA_ZONE);
+            if ("partitioned".equals(storage)) {
+                maintainPartitions(today);
+            } else if (retentionDays > 0) {
+                purgeRows(today.minusDays(retentionDays));
+            }
+        } catch (Exception e) {
+            log.error("维护任务日志过程中发生异常", e);
+        }
+    }
+
+    private void maintainPartitions(LocalDate today) {
+        List<String> names = taskLogMapper.findPartitionNames();
+        if (!names.contains(MAX_PARTITION)) {
+            log.warn("task_logs不是分区表或缺少{}分区，请先执行db/task_logs_partitioned.sql", MAX_PARTITION);
+            return;
+        }
+        for (String[] partition : missingPartitions(names, today)) {
+            taskLogMapper.addPartition(partition[0], partition[1]);
+            log.info("创建日志分区{}, 上界{}", partition[0], partition[1]);
+        }
+        if (retentionDays > 0) {
+            List<String> expired = expiredPartitions(names, today.minusDays(retentionDays));
+            if (!expired.isEmpty()) {
+                taskLogMapper.dropPartitions(expired);
+                log.info("删除过期的日志分区: {}", expired);
+            }
+        }
+    }
+
+    private void purgeRows(LocalDate cutoff) {
+        int deleted = 0;
+        int batch;
+        do {
+            batch = taskLogMapper.deleteBefore(cutoff.atStartOfDay(), deleteBatchSize);
+            deleted += batch;
+        } while (batch == deleteBatchSize);
+        if (deleted > 0) {
+            log.info("删除{}之前的执行日志{}条", cutoff, deleted);
+        }
+    }
+
+    /**
+     * 需要创建的分区，从已有的最后一个分区之后一直到当前周期之后premake个周期；
+     * 还没有按时间的分区时从保留期起点开始，迁移进MAXVALUE分区的历史数据按时间拆分到各分区
+     *
+     * @return 分区名和上界
+     */
+    List<String[]> missingPartitions(List<String> names, LocalDate today) {
+        LocalDate last = null;
+        for (String name : names) {
+            LocalDate start = parse(name);
+            if (start != null && (last == null || start.isAfter(last))) {
+                last = start;
+            }
+        }
+        LocalDate from = last != null
+                ? next(last)
+                : periodStart(retentionDays > 0 ? today.minusDays(retentionDays) : today);
+        LocalDate until = periodStart(today);
+        for (int i = 0; i < premake; i++) {
+            until = next(until);
+        }
+        List<String[]> missing = new ArrayList<>();
+        for (LocalDate start = from; !start.isAfter(until); start = next(start)) {
+            missing.add(new String[]{name(start), next(start).format(BOUND)});
+        }
+        return missing;
+    }
+
+    /**
+     * 全部数据都早于cutoff的分区
+     */
+    List<String> expiredPartitions(List<String> names, LocalDate cutoff) {
+        List<String> expired = new ArrayList<>();
+        for (String name : names) {
+            LocalDate start = parse(name);
+            if (start != null && !next(start).isAfter(cutoff)) {
+                expired.add(name);
+            }
+        }
+        return expired;
+    }
+
+    private boolean monthly() {
+        return "month".equals(granularity);
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return monthly() ? date.withDayOfMonth(1) : date;
+    }
+
+    private LocalDate next(LocalDate start) {
+        return monthly() ? start.plusMonths(1) : start.plusDays(1);
+    }
+
+    private String name(LocalDate start) {
+        return start.format(PARTITION_NAME);
+    }
+
+    /**
+     * 分区名对应的周期起始日期，不是按日期命名的分区返回null
+     */
+    private LocalDate parse(String name) {
+        if (name == null || name.length() != 9 || !name.startsWith("p")) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(name, PARTITION_NAME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.coze.timer.scheduler;
+
+import com.coze.timer.executor.CircuitBreakerRegistry;
+import com.coze.timer.executor.EndpointThrottle;
+import com.coze.timer.executor.ExecutionPlanCache;
+import com.coze.timer.executor.HttpTaskExecutor;
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.Task;
+import com.coze.timer.service.TaskService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于时间轮的任务调度器
+ * 在内存中保存已分配任务的下次执行时间，到期后认领并提交给执行器，数据库只用于加载和刷新任务归属以及认领
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WheelTaskScheduler {
+
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+
+    private final HttpTaskExecutor httpTaskExecutor;
+    private final ExecutionPlanCache executionPlanCache;
+    private final EndpointThrottle endpointThrottle;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final TimerMetrics timerMetrics;
+    private final TaskService taskService;
+
+    @Value("${timer.scheduler.tick-ms:10}")
+    private long tickMs;
+
+    /**
+     * 执行器已满时到期任务推迟重试的间隔(毫秒)
+     */
+    @Value("${timer.scheduler.backoff-ms:200}")
+    private long backoffMs;
+
+    private HierarchicalTimingWheel<Task> wheel;
+    private ScheduledExecutorService ticker;
+    private ExecutorService dispatcher;
+
+    /**
+     * 已提交执行但尚未完成的任务，刷新时不会重复入轮
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        wheel = new HierarchicalTimingWheel<>(tickMs, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timer-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 认领涉及数据库事务，放到独立线程中执行，避免阻塞时间轮推进
+        dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timer-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        timerMetrics.gauge("timer.scheduler.wheel.size", "时间轮中等待触发的任务数", wheel, HierarchicalTimingWheel::size);
+        timerMetrics.gauge("timer.scheduler.in.flight", "已提交执行尚未完成的任务数", inFlight, Set::size);
+    }
+
+    /**
+     * 按任务的下次执行时间加入时间轮，已存在的同一任务会被替换
+     */
+    public void schedule(Task task) {
+        if (inFlight.contains(task.getTaskId())) {
+            return;
+        }
+        if (task.getNextRunTime() == null) {
+            cancel(task.getTaskId());
+            return;
+        }
+        // 入轮时预先编译执行计划，到期触发时不再解析任务定义
+        executionPlanCache.warm(task);
+        wheel.schedule(task.getTaskId(), toEpochMilli(task.getNextRunTime()), task);
+    }
+
+    /**
+     * 从时间轮中移除任务
+     */
+    public void cancel(String taskId) {
+        wheel.cancel(taskId);
+        executionPlanCache.evict(taskId);
+    }
+
+    /**
+     * 移除不再归属当前实例的任务
+     *
+     * @return 被移除的任务数
+     */
+    public int retainOwned(Set<String> ownedTaskIds) {
+        executionPlanCache.retainAll(ownedTaskIds);
+        return wheel.retainAll(ownedTaskIds);
+    }
+
+    /**
+     * 移除不在时间轮中且不在执行中的任务的执行计划，清理生命周期事件遗漏的计划(例如任务被其他实例删除)
+     */
+    public void sweepPlans() {
+        Set<String> live = new HashSet<>(wheel.keys());
+        live.addAll(inFlight);
+        executionPlanCache.retainAll(live);
+    }
+
+    /**
+     * 从时间轮中移除一批任务
+     *
+     * @return 被移除的任务数
+     */
+    public int cancelAll(Collection<String> taskIds) {
+        int removed = 0;
+        for (String taskId : taskIds) {
+            if (wheel.cancel(taskId)) {
+                removed++;
+            }
+            executionPlanCache.evict(taskId);
+        }
+        return removed;
+    }
+
+    /**
+     * 时间轮中全部任务ID的快照
+     */
+    public Set<String> scheduledTaskIds() {
+        return wheel.keys();
+    }
+
+    /**
+     * 时间轮中的任务数
+     */
+    public int size() {
+        return wheel.size();
+    }
+
+    private void tick() {
+        try {
+            List<Task> dueTasks = wheel.advance(System.currentTimeMillis());
+            if (!dueTasks.isEmpty()) {
+                dispatcher.execute(() -> dispatch(dueTasks));
+            }
+        } catch (Exception e) {
+            log.error("时间轮推进过程中发生异常", e);
+        }
+    }
+
+    /**
+     * 认领到期任务并提交执行
+     * 只认领执行器当前能接纳的数量，其余任务不认领、留在数据库中保持到期状态，并在时间轮中推迟重试；
+     * 认领在数据库中原子地推进下次执行时间，未认领成功的任务(已被其他实例认领、已取消或已改期)直接丢弃，由下次刷新重新加载
+     */
+    private void dispatch(List<Task> dueTasks) {
+        int reserved = 0;
+        // 已获取但尚未用于执行的全局限流许可
+        int tokens = 0;
+        Map<String, EndpointThrottle.Permit> permits = new HashMap<>();
+        try {
+            List<Task> pending = new ArrayList<>(dueTasks.size());
+            for (Task task : dueTasks) {
+                if (!inFlight.contains(task.getTaskId())) {
+                    pending.add(task);
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            // 按执行器剩余容量预留名额，超出部分推迟
+            reserved = httpTaskExecutor.reserve(pending.size());
+            long now = System.currentTimeMillis();
+            if (reserved < pending.size()) {
+                log.warn("执行器已满，{}个到期任务推迟{}ms重试", pending.size() - reserved, backoffMs);
+                for (Task task : pending.subList(reserved, pending.size())) {
+                    wheel.schedule(task.getTaskId(), now + backoffMs, task);
+                }
+            }
+
+            // 依次检查目标主机熔断、全局限流以及目标主机、用户的限流和并发，被拒绝的任务推迟执行时间而不是丢弃
+            Map<String, Task> candidates = new LinkedHashMap<>();
+            List<Task> deferred = new ArrayList<>();
+            for (Task task : pending.subList(0, reserved)) {
+                String host = hostOf(task);
+                long circuitRetryMs = circuitBreakerRegistry.tryAcquire(host);
+                if (circuitRetryMs > 0) {
+                    log.debug("任务[{}]的目标主机[{}]已熔断，推迟{}ms执行", task.getTaskId(), host, circuitRetryMs);
+                    deferred.add(defer(task, now + circuitRetryMs));
+                    continue;
+                }
+                if (!httpTaskExecutor.tryAcquire()) {
+                    log.warn("任务[{}]被限流，推迟执行", task.getTaskId());
+                    deferred.add(defer(task, now + 1000));
+                    continue;
+                }
+                tokens++;
+                EndpointThrottle.Permit permit = endpointThrottle.tryAcquire(host, task.getUserId());
+                if (!permit.isGranted()) {
+                    log.debug("任务[{}]的目标主机或用户被限流，推迟{}ms执行", task.getTaskId(), permit.getRetryAfterMs());
+                    deferred.add(defer(task, now + permit.getRetryAfterMs()));
+                    continue;
+                }
+                permits.put(task.getTaskId(), permit);
+                candidates.put(task.getTaskId(), task);
+            }
+            if (!deferred.isEmpty()) {
+                taskService.deferTasks(deferred);
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+
+            List<Task> claimedTasks = taskService.claimTasks(candidates.keySet());
+            if (claimedTasks.size() < candidates.size()) {
+                log.debug("到期任务{}个，认领成功{}个", candidates.size(), claimedTasks.size());
+            }
+            // 认领后任务的下次执行时间已被推进，触发延迟按时间轮中的计划执行时间计算
+            long nowMs = System.currentTimeMillis();
+            for (Task task : claimedTasks) {
+                timerMetrics.recordFireLag(Duration.ofMillis(
+                        nowMs - toEpochMilli(candidates.remove(task.getTaskId()).getNextRunTime())));
+                reserved--;
+                tokens--;
+                fire(task, permits.remove(task.getTaskId()));
+            }
+            // 未认领成功的任务已离开时间轮(已取消、已结束或由其他实例执行)，仍需执行时由下次扫描重新加载
+            for (String taskId : candidates.keySet()) {
+                executionPlanCache.evict(taskId);
+            }
+        } catch (Exception e) {
+            log.error("认领到期任务过程中发生异常", e);
+        } finally {
+            // 归还被限流或未认领成功的任务预留的名额和许可
+            httpTaskExecutor.release(reserved);
+            httpTaskExecutor.refund(tokens);
+            for (EndpointThrottle.Permit permit : permits.values()) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * 推迟任务: 时间轮和数据库中的下次执行时间同时推迟，避免刷新时按原到期时间重新入轮
+     * 数据库DATETIME精度为秒，推迟时间向上取整到秒
+     *
+     * @return 用于批量更新数据库的任务
+     */
+    private Task defer(Task task, long deferUntilMs) {
+        long deadline = (deferUntilMs + 999) / 1000 * 1000;
+        wheel.schedule(task.getTaskId(), deadline, task);
+
+        Task deferred = new Task();
+        deferred.setTaskId(task.getTaskId());
+        deferred.setNextRunTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(deadline), CHINA_ZONE));
+        return deferred;
+    }
+
+    /**
+     * 任务请求的目标主机，执行计划无法编译时返回unknown，执行时再按失败处理
+     */
+    private String hostOf(Task task) {
+        try {
+            return executionPlanCache.get(task).getHost();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private void fire(Task task, EndpointThrottle.Permit permit) {
+        log.debug("任务[{}]已认领，提交执行", task.getTaskId());
+        inFlight.add(task.getTaskId());
+        httpTaskExecutor.executeClaimedAsync(task).whenComplete((nextRunTime, ex) -> {
+            inFlight.remove(task.getTaskId());
+            permit.release();
+            if (ex != null) {
+                log.error("任务[{}]执行异常", task.getTaskId(), ex);
+                return;
+            }
+            // 周期任务按认领时推进的下次执行时间重新入轮
+            if (nextRunTime != null) {
+                task.setNextRunTime(nextRunTime);
+                schedule(task);
+            }
+        });
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(CHINA_ZONE).toInstant().toEpochMilli();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+}
@@ -4,7 +4,10 @@ import com.coze.timer.model.Task;
 import com.coze.timer.model.dto.TaskRequest;
 import com.coze.timer.model.dto.TaskResponse;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 任务服务接口
@@ -16,6 +19,12 @@ public interface TaskService {
      */
     TaskResponse createTask(TaskRequest request);
     
+    /**
+     * 批量创建任务，校验通过的任务按块批量写入任务和分配，每块一个事务
+     * @return 与请求顺序一致的逐条结果，status为success或error
+     */
+    List<TaskResponse> createTasks(List<TaskRequest> requests);
+    
     /**
      * 根据ID查询任务
      */
@@ -42,15 +51,44 @@ public interface TaskService {
     int getRunningTaskCount(Integer userId);
     
     /**
-     * 获取需要执行的任务
+     * 流式读取分配给指定实例、在指定时间之前需要执行的任务，按下次执行时间顺序逐个交给consumer，
+     * 不在内存中保存全部任务；consumer中不能访问数据库
+     * @return 读取的任务数
+     */
+    int streamDueTasksForInstance(Long instanceId, LocalDateTime before, Consumer<Task> consumer);
+    
+    /**
+     * 认领指定的到期任务，未到期或已被其他实例认领的任务不会返回
+     * 在同一事务中锁定到期任务(跳过已被其他实例锁定的行)、置为运行中并推进下次执行时间
+     * @param taskIds 任务ID列表
+     * @return 认领成功的任务，nextRunTime为推进后的下次执行时间
      */
-    List<Task> getTasksToExecute(String taskId, int limit);
+    List<Task> claimTasks(Collection<String> taskIds);
     
     /**
      * 更新任务状态
      */
     TaskResponse updateTaskStatus(String taskId, String status);
     
+    /**
+     * 推迟被限流的到期任务，任务对象中的nextRunTime为新的执行时间
+     *
+     * @return 实际推迟的任务数
+     */
+    int deferTasks(List<Task> tasks);
+    
+    /**
+     * 安排失败任务的第retryCount次重试，把下次执行时间改为重试时间
+     *
+     * @return 任务已结束或不存在时返回false
+     */
+    boolean scheduleRetry(String taskId, int retryCount, LocalDateTime retryTime);
+    
+    /**
+     * 执行成功后清零任务的重试次数
+     */
+    void resetRetryCount(String taskId);
+    
     /**
      * 获取未分配的任务
      * @param limit 最大获取数量
@@ -2,29 +2,38 @@ package com.coze.timer.service.impl;
 
 import com.coze.timer.mapper.TaskLogMapper;
 import com.coze.timer.mapper.TaskMapper;
-import com.coze.timer.mapper.InstanceMapper;
 import com.coze.timer.mapper.TaskAssignmentMapper;
 import com.coze.timer.model.Task;
-import com.coze.timer.model.Instance;
 import com.coze.timer.model.TaskAssignment;
 import com.coze.timer.model.dto.TaskRequest;
 import com.coze.timer.model.dto.TaskResponse;
 import com.coze.timer.service.TaskService;
+import com.coze.timer.sharding.ShardManager;
+import com.coze.timer.util.IdGenerator;
 import com.coze.timer.util.TaskScheduleUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 任务服务实现类
@@ -33,6 +42,13 @@ import java.util.UUID;
 @Service
 public class TaskServiceImpl implements TaskService {
     
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+    
+    /**
+     * 状态更新遇到版本冲突时的最大重试次数
+     */
+    private static final int STATUS_UPDATE_RETRIES = 3;
+    
     @Autowired
     private TaskMapper taskMapper;
     
@@ -46,13 +62,25 @@ public class TaskServiceImpl implements TaskService {
     private TaskScheduleUtil taskScheduleUtil;
     
     @Autowired
-    private InstanceMapper instanceMapper;
+    private TaskAssignmentMapper taskAssignmentMapper;
     
     @Autowired
-    private TaskAssignmentMapper taskAssignmentMapper;
+    private ShardManager shardManager;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
     
-    @Value("${timer.instance.name}")
-    private String instanceName;
+    /**
+     * 批量创建任务时每个事务写入的任务数
+     */
+    @Value("${timer.task.bulk.chunk-size:500}")
+    private int bulkChunkSize;
     
     /**
      * 创建任务
@@ -62,7 +90,7 @@ public class TaskServiceImpl implements TaskService {
     public TaskResponse createTask(TaskRequest request) {
         try {
             // 1. 生成任务ID
-            String taskId = UUID.randomUUID().toString();
+            String taskId = idGenerator.nextId();
             
             // 2. 计算下次执行时间
             LocalDateTime nextRunTime = calculateNextRunTime(request);
@@ -74,50 +102,25 @@ public class TaskServiceImpl implements TaskService {
             }
             
             // 3. 构建任务对象
-            Task task = new Task();
-            task.setTaskId(taskId);
-            task.setUserId(request.getUserId());
-            task.setType(request.getType());
-            task.setHttpEndpoint(request.getHttpEndpoint());
-            task.setMethod(request.getMethod());
-            task.setHeaders(objectMapper.writeValueAsString(request.getHeaders()));
-            task.setRequestBody(objectMapper.writeValueAsString(request.getBody()));
-            task.setIntervalSeconds(request.getIntervalSeconds());
-            task.setCronExpression(request.getCronExpression());
-            task.setStartTime(request.getStartTime());
-            task.setStatus("pending");
-            task.setNextRunTime(nextRunTime);
-            
-            // 4. 保存停止条件
-            if (request.getStopCondition() != null) {
-                task.setStopCondition(objectMapper.writeValueAsString(request.getStopCondition()));
-            }
+            Task task = buildTask(taskId, request, nextRunTime);
             
-            // 5. 保存任务
+            // 4. 保存任务
             taskMapper.insert(task);
             
-            // 6. 立即分配任务到当前实例
-            Instance currentInstance = instanceMapper.findByName(instanceName);
-            if (currentInstance != null && "active".equals(currentInstance.getStatus())) {
+            // 5. 立即按哈希环分配任务到归属实例，没有存活实例时留给定时分配
+            Long ownerId = shardManager.ownerOf(taskId);
+            if (ownerId != null) {
                 TaskAssignment assignment = new TaskAssignment();
                 assignment.setTaskId(taskId);
-                assignment.setInstanceId(currentInstance.getId());
+                assignment.setInstanceId(ownerId);
                 assignment.setCreatedAt(LocalDateTime.now());
                 assignment.setUpdatedAt(LocalDateTime.now());
                 taskAssignmentMapper.insert(assignment);
-                log.info("任务[{}]已分配到实例[{}]", taskId, instanceName);
+                log.info("任务[{}]已分配到实例[{}]", taskId, ownerId);
             }
             
-            // 7. 构建响应
-            TaskResponse response = new TaskResponse();
-            response.setTaskId(taskId);
-            response.setTaskStatus("pending");
-            response.setType(request.getType());
-            response.setHttpEndpoint(request.getHttpEndpoint());
-            response.setNextRunTime(nextRunTime);
-            response.setCreatedAt(LocalDateTime.now());
-            
-            return response;
+            // 6. 构建响应
+            return createdResponse(task);
         } catch (Exception e) {
             log.error("创建任务失败", e);
             TaskResponse response = new TaskResponse();
@@ -127,6 +130,148 @@ public class TaskServiceImpl implements TaskService {
         }
     }
     
+    /**
+     * 批量创建任务
+     * 逐条校验并计算下次执行时间，校验通过的任务按块用多行INSERT写入任务和分配，每块一个事务，
+     * 一块写入失败只影响该块中的任务
+     */
+    @Override
+    public List<TaskResponse> createTasks(List<TaskRequest> requests) {
+        TaskResponse[] results = new TaskResponse[requests.size()];
+        List<Task> chunk = new ArrayList<>(Math.min(requests.size(), bulkChunkSize));
+        List<Integer> chunkIndexes = new ArrayList<>(Math.min(requests.size(), bulkChunkSize));
+        for (int i = 0; i < requests.size(); i++) {
+            TaskRequest request = requests.get(i);
+            try {
+                String error = validate(request);
+                LocalDateTime nextRunTime = error == null ? calculateNextRunTime(request) : null;
+                if (error == null && nextRunTime == null) {
+                    error = "无法计算下次执行时间，请检查任务参数";
+                }
+                if (error != null) {
+                    results[i] = errorResponse(error);
+                    continue;
+                }
+                chunk.add(buildTask(idGenerator.nextId(), request, nextRunTime));
+                chunkIndexes.add(i);
+            } catch (Exception e) {
+                results[i] = errorResponse("创建任务失败: " + e.getMessage());
+                continue;
+            }
+            if (chunk.size() >= bulkChunkSize) {
+                insertChunk(chunk, chunkIndexes, results);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, chunkIndexes, results);
+        }
+        List<TaskResponse> responses = new ArrayList<>(results.length);
+        Collections.addAll(responses, results);
+        return responses;
+    }
+    
+    /**
+     * 在一个事务中批量写入一块任务及其分配，写入后清空chunk
+     */
+    private void insertChunk(List<Task> chunk, List<Integer> chunkIndexes, TaskResponse[] results) {
+        try {
+            List<TaskAssignment> assignments = new ArrayList<>(chunk.size());
+            for (Task task : chunk) {
+                // 没有存活实例时留给定时分配
+                Long ownerId = shardManager.ownerOf(task.getTaskId());
+                if (ownerId != null) {
+                    TaskAssignment assignment = new TaskAssignment();
+                    assignment.setTaskId(task.getTaskId());
+                    assignment.setInstanceId(ownerId);
+                    assignments.add(assignment);
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                taskMapper.insertBatch(chunk);
+                if (!assignments.isEmpty()) {
+                    taskAssignmentMapper.insertBatch(assignments);
+                }
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                TaskResponse response = createdResponse(chunk.get(i));
+                response.setStatus("success");
+                results[chunkIndexes.get(i)] = response;
+            }
+            log.info("批量创建{}个任务", chunk.size());
+        } catch (Exception e) {
+            log.error("批量写入{}个任务失败", chunk.size(), e);
+            for (Integer index : chunkIndexes) {
+                results[index] = errorResponse("创建任务失败: " + e.getMessage());
+            }
+        } finally {
+            chunk.clear();
+            chunkIndexes.clear();
+        }
+    }
+    
+    /**
+     * 按TaskRequest上的约束校验请求
+     *
+     * @return 校验失败的原因，通过时返回null
+     */
+    private String validate(TaskRequest request) {
+        if (request == null) {
+            return "请求不能为空";
+        }
+        Set<ConstraintViolation<TaskRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder();
+        for (ConstraintViolation<TaskRequest> violation : violations) {
+            if (message.length() > 0) {
+                message.append("; ");
+            }
+            message.append(violation.getMessage());
+        }
+        return message.toString();
+    }
+    
+    private Task buildTask(String taskId, TaskRequest request, LocalDateTime nextRunTime) throws IOException {
+        Task task = new Task();
+        task.setTaskId(taskId);
+        task.setUserId(request.getUserId());
+        task.setType(request.getType());
+        task.setHttpEndpoint(request.getHttpEndpoint());
+        task.setMethod(request.getMethod());
+        task.setHeaders(objectMapper.writeValueAsString(request.getHeaders()));
+        task.setRequestBody(objectMapper.writeValueAsString(request.getBody()));
+        task.setIntervalSeconds(request.getIntervalSeconds());
+        task.setCronExpression(request.getCronExpression());
+        task.setStartTime(request.getStartTime());
+        task.setStatus("pending");
+        task.setNextRunTime(nextRunTime);
+        
+        // 保存停止条件
+        if (request.getStopCondition() != null) {
+            task.setStopCondition(objectMapper.writeValueAsString(request.getStopCondition()));
+        }
+        return task;
+    }
+    
+    private TaskResponse createdResponse(Task task) {
+        TaskResponse response = new TaskResponse();
+        response.setTaskId(task.getTaskId());
+        response.setTaskStatus("pending");
+        response.setType(task.getType());
+        response.setHttpEndpoint(task.getHttpEndpoint());
+        response.setNextRunTime(task.getNextRunTime());
+        response.setCreatedAt(LocalDateTime.now());
+        return response;
+    }
+    
+    private TaskResponse errorResponse(String message) {
+        TaskResponse response = new TaskResponse();
+        response.setStatus("error");
+        response.setMessage(message);
+        return response;
+    }
+    
     /**
      * 根据ID查询任务
      */
@@ -166,7 +311,7 @@ public class TaskServiceImpl implements TaskService {
         }
         
         // 更新任务状态为stopped
-        taskMapper.updateStatus(taskId, "stopped", null);
+        taskMapper.updateStatus(taskId, "stopped", null, null);
         
         TaskResponse response = new TaskResponse();
         response.setStatus("success");
@@ -229,18 +374,61 @@ public class TaskServiceImpl implements TaskService {
     }
     
     /**
-     * 获取需要执行的任务
+     * 流式读取分配给指定实例的到期任务，游标需要在事务中保持打开
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public int streamDueTasksForInstance(Long instanceId, LocalDateTime before, Consumer<Task> consumer) {
+        int count = 0;
+        try (Cursor<Task> cursor = taskMapper.streamDueTasksByInstance(instanceId, before)) {
+            for (Task task : cursor) {
+                consumer.accept(task);
+                count++;
+            }
+        } catch (IOException e) {
+            log.warn("关闭任务游标失败", e);
+        }
+        return count;
+    }
+    
+    /**
+     * 认领指定的到期任务
      */
     @Override
-    public List<Task> getTasksToExecute(String taskId, int limit) {
-        return taskMapper.findTasksToExecute(taskId, LocalDateTime.now(), limit);
+    @Transactional
+    public List<Task> claimTasks(Collection<String> taskIds) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return claim(taskIds, taskIds.size());
+    }
+    
+    /**
+     * 锁定到期任务并在一条语句中推进下次执行时间，需在事务中调用
+     */
+    private List<Task> claim(Collection<String> taskIds, int limit) {
+        LocalDateTime now = LocalDateTime.now(CHINA_ZONE);
+        List<Task> tasks = taskMapper.lockDueTasks(taskIds, now, limit);
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        // 同一批次中相同的Cron表达式只计算一次
+        Map<String, LocalDateTime> cronNextRunTimes = taskScheduleUtil.getNextRunTimes(tasks, now);
+        for (Task task : tasks) {
+            task.setStatus("running");
+            task.setNextRunTime("cron".equals(task.getType())
+                    ? cronNextRunTimes.get(task.getTaskId()) : calculateNextRunTimeAfter(task, now));
+            task.setExecutionCount(task.getExecutionCount() + 1);
+        }
+        taskMapper.advanceClaimedTasks(tasks);
+        return tasks;
     }
     
     /**
      * 更新任务状态
+     * 基于version做乐观并发控制，版本冲突时重新读取并重试，超过重试次数返回conflict
      */
     @Override
-    @SchedulerLock(name = "updateTaskStatus", lockAtLeastFor = "PT5S")
     public TaskResponse updateTaskStatus(String taskId, String status) {
         if (taskId == null || status == null) {
             return TaskResponse.builder()
@@ -249,39 +437,100 @@ public class TaskServiceImpl implements TaskService {
                     .build();
         }
         
-        Task task = taskMapper.findById(taskId);
-        if (task == null) {
-            return TaskResponse.builder()
-                    .status("error")
-                    .message("Task not found")
-                    .build();
+        Task task = null;
+        for (int attempt = 0; attempt <= STATUS_UPDATE_RETRIES; attempt++) {
+            task = taskMapper.findById(taskId);
+            if (task == null) {
+                return TaskResponse.builder()
+                        .status("error")
+                        .message("Task not found")
+                        .build();
+            }
+            
+            // 已结束的任务不能再次进入运行状态，避免时间轮中残留的周期任务被重新激活
+            if ("running".equals(status) && isFinished(task.getStatus())) {
+                return TaskResponse.builder()
+                        .status("error")
+                        .taskId(taskId)
+                        .taskStatus(task.getStatus())
+                        .version(task.getVersion())
+                        .message("Task already finished")
+                        .build();
+            }
+            
+            // 计算下次执行时间
+            LocalDateTime nextRunTime = null;
+            if ("running".equals(status)) {
+                nextRunTime = calculateNextRunTimeAfter(task, LocalDateTime.now(CHINA_ZONE));
+            }
+            
+            if (taskMapper.updateStatus(taskId, status, nextRunTime, task.getVersion()) > 0) {
+                return TaskResponse.builder()
+                        .status("success")
+                        .taskId(taskId)
+                        .taskStatus(status)
+                        .nextRunTime(nextRunTime)
+                        .version(task.getVersion() + 1)
+                        .executionCount("running".equals(status) ? task.getExecutionCount() + 1 : task.getExecutionCount())
+                        .build();
+            }
+            log.debug("更新任务[{}]状态为{}时版本冲突，当前版本: {}", taskId, status, task.getVersion());
         }
         
-        // 计算下次执行时间
-        LocalDateTime nextRunTime = null;
-        // 使用中国时区
-        ZoneId chinaZone = ZoneId.of("Asia/Shanghai");
-        
-        if ("running".equals(status) && "interval".equals(task.getType())) {
-            nextRunTime = LocalDateTime.now(chinaZone).plusSeconds(task.getIntervalSeconds());
-        } else if ("running".equals(status) && "cron".equals(task.getType())) {
-            nextRunTime = taskScheduleUtil.getNextRunTime(task.getCronExpression());
+        return TaskResponse.builder()
+                .status("conflict")
+                .taskId(taskId)
+                .taskStatus(task.getStatus())
+                .version(task.getVersion())
+                .message("Task was modified concurrently")
+                .build();
+    }
+    
+    /**
+     * 推迟被限流的到期任务
+     */
+    @Override
+    public int deferTasks(List<Task> tasks) {
+        if (tasks == null || tasks.isEmpty()) {
+            return 0;
         }
-        
-        boolean success = taskMapper.updateStatus(taskId, status, nextRunTime) > 0;
-        if (success) {
-            return TaskResponse.builder()
-                    .status("success")
-                    .taskId(taskId)
-                    .taskStatus(status)
-                    .nextRunTime(nextRunTime)
-                    .build();
-        } else {
-            return TaskResponse.builder()
-                    .status("error")
-                    .message("Failed to update task status")
-                    .build();
+        return taskMapper.deferTasks(tasks, LocalDateTime.now(CHINA_ZONE));
+    }
+    
+    /**
+     * 安排失败任务的重试
+     */
+    @Override
+    public boolean scheduleRetry(String taskId, int retryCount, LocalDateTime retryTime) {
+        return taskMapper.updateRetry(taskId, retryCount, retryTime) > 0;
+    }
+    
+    /**
+     * 清零任务的重试次数
+     */
+    @Override
+    public void resetRetryCount(String taskId) {
+        taskMapper.updateRetry(taskId, 0, null);
+    }
+    
+    /**
+     * 判断任务是否已结束
+     */
+    private boolean isFinished(String status) {
+        return "completed".equals(status) || "failed".equals(status) || "stopped".equals(status);
+    }
+    
+    /**
+     * 计算任务本次触发之后的下次执行时间，一次性任务返回null
+     * 截断到秒，与数据库DATETIME精度一致，避免写入时被四舍五入到更晚的时间
+     */
+    private LocalDateTime calculateNextRunTimeAfter(Task task, LocalDateTime now) {
+        if ("interval".equals(task.getType())) {
+            return now.withNano(0).plusSeconds(task.getIntervalSeconds());
+        } else if ("cron".equals(task.getType())) {
+            return taskScheduleUtil.getNextRunTime(task.getCronExpression(), now);
         }
+        return null;
     }
     
     /**
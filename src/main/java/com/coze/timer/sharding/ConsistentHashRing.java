@@ -0,0 +1,132 @@
+package com.coze.timer.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * 实例的一致性哈希环
+ * 每个实例在环上放置若干虚拟节点，任务按taskId的哈希值顺时针找到第一个虚拟节点，归属该节点对应的实例；
+ * 实例加入或离开时只有落在其虚拟节点区间内的任务改变归属，其余任务保持不动
+ * 环的取值范围为32位无符号整数，任务位置直接取taskId的CRC32，与MySQL的CRC32()函数一致，
+ * 可以在SQL中按哈希区间批量迁移任务；环创建后不可修改，实例变化时重新创建
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, Long> ring = new TreeMap<>();
+    private final Set<Long> members;
+
+    /**
+     * @param instanceIds  参与分片的实例ID
+     * @param virtualNodes 每个实例的虚拟节点数
+     */
+    public ConsistentHashRing(Collection<Long> instanceIds, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("虚拟节点数必须大于0: " + virtualNodes);
+        }
+        this.members = Collections.unmodifiableSet(new TreeSet<>(instanceIds));
+        for (Long instanceId : members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // 哈希冲突时保留ID较小的实例，保证各实例构建出相同的环
+                ring.merge(nodePosition(instanceId + "#" + i), instanceId, Math::min);
+            }
+        }
+    }
+
+    /**
+     * 任务归属的实例ID，环为空时返回null
+     */
+    public Long locate(String taskId) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, Long> entry = ring.ceilingEntry(position(taskId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * 参与分片的实例ID
+     */
+    public Set<Long> getMembers() {
+        return members;
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * 按哈希区间划分的归属，相邻且归属相同的区间合并，按上界升序排列
+     * 哈希值不大于某个区间上界且大于前一个区间上界的任务归属该区间的实例，大于最后一个上界的任务回绕到第一个区间
+     */
+    public List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : ring.entrySet()) {
+            int last = segments.size() - 1;
+            if (last >= 0 && segments.get(last).getInstanceId().equals(entry.getValue())) {
+                segments.set(last, new Segment(entry.getKey(), entry.getValue()));
+            } else {
+                segments.add(new Segment(entry.getKey(), entry.getValue()));
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * 任务在环上的位置: taskId的CRC32
+     */
+    public static long position(String taskId) {
+        return crc32(taskId);
+    }
+
+    /**
+     * CRC32对相近的键(如同一实例的虚拟节点)分布不够均匀，经过一次64位混淆后取高32位作为虚拟节点位置
+     */
+    private static long nodePosition(String key) {
+        long h = crc32(key);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h >>> 32;
+    }
+
+    private static long crc32(String key) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(key.getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+
+    /**
+     * 哈希区间及其归属实例
+     */
+    public static final class Segment {
+        private final long upperBound;
+        private final Long instanceId;
+
+        public Segment(long upperBound, Long instanceId) {
+            this.upperBound = upperBound;
+            this.instanceId = instanceId;
+        }
+
+        /**
+         * 区间上界(包含)
+         */
+        public long getUpperBound() {
+            return upperBound;
+        }
+
+        public Long getInstanceId() {
+            return instanceId;
+        }
+    }
+}
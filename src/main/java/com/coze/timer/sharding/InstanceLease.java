@@ -0,0 +1,147 @@
+package com.coze.timer.sharding;
+
+import com.coze.timer.mapper.InstanceMapper;
+import com.coze.timer.model.Instance;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 当前实例的租约
+ * 在独立线程中定期以数据库时间续约，不受扫描、分配等定时任务执行耗时的影响；
+ * 本地超过租约时长没有续约成功时视为已失去租约，停止加载和分配任务，避免与接管任务的实例同时调度
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InstanceLease {
+
+    private final InstanceMapper instanceMapper;
+
+    @Value("${timer.instance.name}")
+    private String instanceName;
+
+    @Value("${server.port:8080}")
+    private int port;
+
+    /**
+     * 续约间隔(秒)
+     */
+    @Value("${timer.heartbeat.interval:30}")
+    private int intervalSeconds;
+
+    /**
+     * 租约时长(秒)
+     */
+    @Value("${timer.heartbeat.timeout:90}")
+    private int leaseSeconds;
+
+    /**
+     * 租约过期后判定实例失效前的宽限期(秒)
+     */
+    @Value("${timer.heartbeat.grace:10}")
+    private int graceSeconds;
+
+    private volatile Long instanceId;
+    private volatile long renewedNanos;
+    private ScheduledExecutorService renewer;
+
+    @PostConstruct
+    public void init() {
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timer-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动时先同步续约一次，扫描任务开始前即持有租约
+        renew();
+        renewer.scheduleWithFixedDelay(this::renew, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 续约，实例记录不存在时先注册
+     */
+    public void renew() {
+        try {
+            Long id = instanceId;
+            if (id == null) {
+                id = register();
+            }
+            if (instanceMapper.renewLease(id, leaseSeconds) > 0) {
+                if (!isHeld()) {
+                    log.info("实例[{}]已获得租约，租约时长{}秒", instanceName, leaseSeconds);
+                }
+                instanceId = id;
+                renewedNanos = System.nanoTime();
+            } else {
+                log.warn("实例[{}]续约失败，实例不存在或处于维护状态", instanceName);
+                instanceId = null;
+            }
+        } catch (Exception e) {
+            log.error("实例[{}]续约异常", instanceName, e);
+        }
+    }
+
+    /**
+     * 当前实例是否持有有效租约
+     */
+    public boolean isHeld() {
+        return instanceId != null && System.nanoTime() - renewedNanos < TimeUnit.SECONDS.toNanos(leaseSeconds);
+    }
+
+    /**
+     * 当前实例ID，未注册时返回null
+     */
+    public Long getInstanceId() {
+        return instanceId;
+    }
+
+    public int getGraceSeconds() {
+        return graceSeconds;
+    }
+
+    private Long register() throws UnknownHostException {
+        Instance instance = instanceMapper.findByName(instanceName);
+        if (instance != null) {
+            return instance.getId();
+        }
+        instance = new Instance();
+        instance.setInstanceName(instanceName);
+        instance.setIpAddress(InetAddress.getLocalHost().getHostAddress());
+        instance.setPort(port);
+        instance.setStatus("active");
+        instanceMapper.insert(instance);
+        log.info("注册实例[{}]: {}:{}", instanceName, instance.getIpAddress(), port);
+        // insert未回填自增ID，重新查询
+        return instanceMapper.findByName(instanceName).getId();
+    }
+
+    /**
+     * 正常关闭时释放租约
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        Long id = instanceId;
+        if (id != null) {
+            try {
+                instanceMapper.releaseLease(id);
+                instanceId = null;
+                log.info("实例[{}]已释放租约", instanceName);
+            } catch (Exception e) {
+                log.warn("实例[{}]释放租约失败，等待租约过期", instanceName, e);
+            }
+        }
+    }
+}
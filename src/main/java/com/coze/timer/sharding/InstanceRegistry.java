@@ -0,0 +1,112 @@
+package com.coze.timer.sharding;
+
+import com.coze.timer.mapper.InstanceMapper;
+import com.coze.timer.model.Instance;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 实例注册表
+ * 在内存中保存存活实例的ID，由后台定期刷新，实例状态变化(判定失效)后立即刷新；
+ * 查询任务归属、分配任务时直接读取内存中的视图，不再每次访问instance表。
+ * 当前实例是否存活以本地租约状态为准，租约状态变化时不需要重新查询即可反映到视图中。
+ * 当前实例只保存ID: ID由InstanceLease在启动注册时确定并随续约维护，本注册表依赖它判断本地租约，
+ * 分片和任务加载只按ID比较，不需要实例的其他字段
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InstanceRegistry {
+
+    private final InstanceMapper instanceMapper;
+    private final InstanceLease instanceLease;
+
+    private volatile View view;
+
+    /**
+     * 按数据库时间重新加载存活实例，刷新间隔由timer.sharding.membership-refresh-ms配置
+     */
+    @Scheduled(fixedDelayString = "${timer.sharding.membership-refresh-ms:5000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("刷新存活实例失败，继续使用上次的实例视图", e);
+        }
+    }
+
+    /**
+     * 实例状态变化后重新加载存活实例
+     */
+    public View reload() {
+        Set<Long> live = new HashSet<>();
+        for (Instance instance : instanceMapper.findLiveInstances(instanceLease.getGraceSeconds())) {
+            live.add(instance.getId());
+        }
+        View loaded = new View(live, instanceLease.getInstanceId(), instanceLease.isHeld());
+        view = loaded;
+        return loaded;
+    }
+
+    /**
+     * 当前的实例视图，尚未加载时同步加载一次；本地租约状态与视图不一致时按当前租约状态重建视图
+     */
+    public View current() {
+        View current = view;
+        if (current == null) {
+            return reload();
+        }
+        Long localId = instanceLease.getInstanceId();
+        boolean held = instanceLease.isHeld();
+        if (held != current.localHeld || (localId != null && !localId.equals(current.localId))) {
+            current = new View(current.liveIds, localId, held);
+            view = current;
+        }
+        return current;
+    }
+
+    /**
+     * 参与分片的实例ID
+     */
+    public Set<Long> liveInstanceIds() {
+        return current().getMembers();
+    }
+
+    /**
+     * 不可变的实例视图，实例集合变化时生成新的视图
+     */
+    public static final class View {
+        private final Set<Long> liveIds;
+        private final Long localId;
+        private final boolean localHeld;
+        private final Set<Long> members;
+
+        private View(Set<Long> liveIds, Long localId, boolean localHeld) {
+            this.liveIds = liveIds;
+            this.localId = localId;
+            this.localHeld = localHeld;
+            Set<Long> ids = new HashSet<>(liveIds);
+            if (localId != null) {
+                if (localHeld) {
+                    ids.add(localId);
+                } else {
+                    ids.remove(localId);
+                }
+            }
+            this.members = Collections.unmodifiableSet(ids);
+        }
+
+        /**
+         * 存活的实例ID: 状态为active且租约未过期(含宽限期)，当前实例以本地租约状态为准
+         */
+        public Set<Long> getMembers() {
+            return members;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.coze.timer.sharding;
+
+import com.coze.timer.mapper.InstanceMapper;
+import com.coze.timer.mapper.TaskAssignmentMapper;
+import com.coze.timer.mapper.TaskMapper;
+import com.coze.timer.model.Instance;
+import com.coze.timer.model.Task;
+import com.coze.timer.model.TaskAssignment;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务分片管理
+ * 以存活实例构建一致性哈希环，任务归属由taskId的哈希值决定；新任务直接分配给归属实例，
+ * 实例加入或离开后只迁移归属发生变化的任务，分配和迁移都按实例分组批量写入task_assignment；
+ * 租约过期的实例由持有分配锁的实例标记为失效，其任务按新的哈希环区间用一条语句整体迁移
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardManager {
+
+    private final InstanceMapper instanceMapper;
+    private final TaskAssignmentMapper taskAssignmentMapper;
+    private final TaskMapper taskMapper;
+    private final InstanceLease instanceLease;
+    private final InstanceRegistry instanceRegistry;
+
+    /**
+     * 每个实例在哈希环上的虚拟节点数
+     */
+    @Value("${timer.sharding.virtual-nodes:160}")
+    private int virtualNodes;
+
+    /**
+     * 即使实例没有变化，也定期全量检查一次任务归属(秒)
+     */
+    @Value("${timer.sharding.rebalance-interval-seconds:300}")
+    private long rebalanceIntervalSeconds;
+
+    @Value("${timer.scheduler.batch-size:500}")
+    private int batchSize;
+
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * 上次全量检查时的实例集合和时间，只在持有分配锁的实例上使用
+     */
+    private Set<Long> rebalancedMembers;
+    private long rebalancedNanos;
+
+    /**
+     * 任务归属的实例ID，没有存活实例时返回null
+     */
+    public Long ownerOf(String taskId) {
+        return currentRing().locate(taskId);
+    }
+
+    /**
+     * 按实例注册表中的存活实例取得哈希环，不访问数据库；实例没有变化时沿用原来的环
+     */
+    public ConsistentHashRing currentRing() {
+        Set<Long> members = instanceRegistry.liveInstanceIds();
+        ConsistentHashRing current = ring;
+        if (current != null && current.getMembers().equals(members)) {
+            return current;
+        }
+        return rebuildRing(members);
+    }
+
+    private synchronized ConsistentHashRing rebuildRing(Set<Long> members) {
+        ConsistentHashRing current = ring;
+        if (current == null || !current.getMembers().equals(members)) {
+            if (current != null) {
+                log.info("参与分片的实例变化: {} -> {}", current.getMembers(), members);
+            }
+            current = new ConsistentHashRing(members, virtualNodes);
+            ring = current;
+        }
+        return current;
+    }
+
+    /**
+     * 把未分配的任务按哈希环批量分配给归属实例
+     *
+     * @return 分配的任务数
+     */
+    public int assignUnassigned() {
+        ConsistentHashRing current = currentRing();
+        if (current.isEmpty()) {
+            return 0;
+        }
+        int assigned = 0;
+        List<Task> unassignedTasks;
+        do {
+            unassignedTasks = taskMapper.findUnassignedTasks(batchSize);
+            if (unassignedTasks.isEmpty()) {
+                break;
+            }
+            List<TaskAssignment> assignments = new ArrayList<>(unassignedTasks.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (Task task : unassignedTasks) {
+                TaskAssignment assignment = new TaskAssignment();
+                assignment.setTaskId(task.getTaskId());
+                assignment.setInstanceId(current.locate(task.getTaskId()));
+                assignment.setCreatedAt(now);
+                assignment.setUpdatedAt(now);
+                assignments.add(assignment);
+            }
+            int inserted = taskAssignmentMapper.insertBatch(assignments);
+            assigned += inserted;
+            // 并发创建任务时部分任务可能已被分配，没有新增时结束，避免重复读取同一批
+            if (inserted == 0) {
+                break;
+            }
+        } while (unassignedTasks.size() == batchSize);
+        if (assigned > 0) {
+            log.info("按哈希环分配{}个未分配的任务", assigned);
+        }
+        return assigned;
+    }
+
+    /**
+     * 接管租约过期超过宽限期的实例的任务，标记失效和迁移在同一事务中完成
+     *
+     * @return 迁移的任务数
+     */
+    @Transactional
+    public synchronized int failover() {
+        int graceSeconds = instanceLease.getGraceSeconds();
+        List<Long> expiredIds = new ArrayList<>();
+        for (Instance instance : instanceMapper.findInactiveInstances(graceSeconds)) {
+            if (instance.getId().equals(instanceLease.getInstanceId())) {
+                continue;
+            }
+            // 判定与标记之间实例可能已续约，以标记成功为准
+            if (instanceMapper.expireInstance(instance.getId(), graceSeconds) > 0) {
+                log.warn("实例[{}]租约已过期，标记为失效并接管其任务", instance.getInstanceName());
+                expiredIds.add(instance.getId());
+            }
+        }
+        if (expiredIds.isEmpty()) {
+            return 0;
+        }
+
+        // 实例状态已变化，立即刷新注册表，不等待下次定期刷新
+        instanceRegistry.reload();
+        ConsistentHashRing current = currentRing();
+        if (current.isEmpty()) {
+            return 0;
+        }
+        int moved = 0;
+        for (Long expiredId : expiredIds) {
+            moved += moveAssignments(expiredId, current);
+        }
+        return moved;
+    }
+
+    /**
+     * 把失效实例的任务按新哈希环的区间迁移到各自的归属实例，只有一个存活实例时直接整体迁移，
+     * 都只需一条更新语句，不需要把任务读到内存
+     */
+    private int moveAssignments(Long fromInstanceId, ConsistentHashRing current) {
+        List<ConsistentHashRing.Segment> segments = current.segments();
+        int moved = segments.size() == 1
+                ? taskAssignmentMapper.reassignInstance(fromInstanceId, segments.get(0).getInstanceId())
+                : taskAssignmentMapper.reassignByHashRange(fromInstanceId, segments);
+        log.info("从失效实例[{}]迁移{}个任务", fromInstanceId, moved);
+        return moved;
+    }
+
+    /**
+     * 实例变化或距上次检查超过间隔时，按哈希环迁移归属发生变化的任务
+     *
+     * @return 迁移的任务数
+     */
+    public synchronized int rebalanceIfNeeded() {
+        ConsistentHashRing current = currentRing();
+        if (current.isEmpty()) {
+            return 0;
+        }
+        boolean membersChanged = !current.getMembers().equals(rebalancedMembers);
+        boolean due = System.nanoTime() - rebalancedNanos > TimeUnit.SECONDS.toNanos(rebalanceIntervalSeconds);
+        if (!membersChanged && !due) {
+            return 0;
+        }
+        int moved = rebalance(current);
+        rebalancedMembers = current.getMembers();
+        rebalancedNanos = System.nanoTime();
+        return moved;
+    }
+
+    /**
+     * 按task_id分页扫描全部任务分配，归属变化的任务按目标实例分组批量更新
+     */
+    private int rebalance(ConsistentHashRing current) {
+        int moved = 0;
+        Map<Long, Integer> movedTo = new HashMap<>();
+        String afterTaskId = null;
+        List<TaskAssignment> page;
+        do {
+            page = taskAssignmentMapper.findPage(afterTaskId, batchSize);
+            Map<Long, List<String>> misplaced = new HashMap<>();
+            for (TaskAssignment assignment : page) {
+                Long owner = current.locate(assignment.getTaskId());
+                if (!owner.equals(assignment.getInstanceId())) {
+                    misplaced.computeIfAbsent(owner, key -> new ArrayList<>()).add(assignment.getTaskId());
+                }
+            }
+            for (Map.Entry<Long, List<String>> entry : misplaced.entrySet()) {
+                int updated = taskAssignmentMapper.reassign(entry.getValue(), entry.getKey());
+                moved += updated;
+                movedTo.merge(entry.getKey(), updated, Integer::sum);
+            }
+            if (!page.isEmpty()) {
+                afterTaskId = page.get(page.size() - 1).getTaskId();
+            }
+        } while (page.size() == batchSize);
+        if (moved > 0) {
+            log.info("按哈希环迁移{}个任务，各实例迁入数: {}", moved, movedTo);
+        }
+        return moved;
+    }
+}
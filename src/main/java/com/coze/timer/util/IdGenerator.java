@@ -0,0 +1,13 @@
+package com.coze.timer.util;
+
+/**
+ * 任务和日志的ID生成器
+ * 生成的ID按时间递增，作为主键时新记录追加在B+树末尾，避免随机UUID造成的页分裂；实现由timer.id.type选择
+ */
+public interface IdGenerator {
+
+    /**
+     * 生成一个新ID，长度不超过36个字符
+     */
+    String nextId();
+}
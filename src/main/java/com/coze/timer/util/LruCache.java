@@ -0,0 +1,50 @@
+package com.coze.timer.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 容量有限的LRU缓存，超出容量时淘汰最久未访问的条目，所有方法线程安全
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, V> map;
+
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize必须大于0: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.map = new LinkedHashMap<K, V>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized V remove(K key) {
+        return map.remove(key);
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
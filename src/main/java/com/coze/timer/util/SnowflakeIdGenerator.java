@@ -0,0 +1,80 @@
+package com.coze.timer.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Supplier;
+
+/**
+ * Snowflake格式的64位ID: 41位毫秒时间戳(自2024-01-01起) + 10位机器号 + 12位序号，
+ * 输出为定长16位十六进制字符串，字符串顺序与生成顺序一致；
+ * 机器号取instance表中实例ID的低10位，同时存活的实例ID不超过1024个时不会重复
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    static final long EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+    static final int WORKER_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    private static final long MAX_WORKER = (1L << WORKER_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Supplier<Long> instanceId;
+    private volatile long workerId = -1;
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    /**
+     * @param instanceId 当前实例ID，实例注册完成前可能为null，首次生成ID时获取
+     */
+    public SnowflakeIdGenerator(Supplier<Long> instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    @Override
+    public String nextId() {
+        return toHex(nextLong());
+    }
+
+    public long nextLong() {
+        long worker = workerId();
+        long timestamp;
+        long seq;
+        synchronized (this) {
+            // 时钟回拨或同一毫秒内序号用完时沿用并推进上次的时间戳，不等待时钟
+            timestamp = Math.max(System.currentTimeMillis() - EPOCH, lastTimestamp);
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & MAX_SEQUENCE;
+                if (sequence == 0) {
+                    timestamp++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            seq = sequence;
+        }
+        return timestamp << (WORKER_BITS + SEQUENCE_BITS) | worker << SEQUENCE_BITS | seq;
+    }
+
+    private long workerId() {
+        long worker = workerId;
+        if (worker < 0) {
+            Long id = instanceId.get();
+            if (id == null) {
+                throw new IllegalStateException("当前实例尚未注册，无法生成Snowflake ID");
+            }
+            worker = id & MAX_WORKER;
+            workerId = worker;
+        }
+        return worker;
+    }
+
+    static String toHex(long value) {
+        char[] chars = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+}
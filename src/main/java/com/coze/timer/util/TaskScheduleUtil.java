@@ -1,5 +1,6 @@
 package com.coze.timer.util;
 
+import com.coze.timer.model.Task;
 import com.cronutils.model.CronType;
 import com.cronutils.model.definition.CronDefinition;
 import com.cronutils.model.definition.CronDefinitionBuilder;
@@ -10,6 +11,9 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -17,40 +21,88 @@ import java.util.Optional;
  */
 @Component
 public class TaskScheduleUtil {
-    
-    private CronParser cronParser;
-    
+
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+
+    /**
+     * 编译后的Cron表达式缓存大小，不同用户大量使用相同的表达式，缓存命中率很高
+     */
+    private static final int EXECUTION_TIME_CACHE_SIZE = 1024;
+
+    private final CronParser cronParser;
+
+    private final LruCache<String, ExecutionTime> executionTimes = new LruCache<>(EXECUTION_TIME_CACHE_SIZE);
+
     public TaskScheduleUtil() {
         CronDefinition cronDefinition = CronDefinitionBuilder.instanceDefinitionFor(CronType.SPRING);
         this.cronParser = new CronParser(cronDefinition);
     }
-    
+
     /**
      * 获取下一次执行时间
      */
     public LocalDateTime getNextRunTime(String cronExpression) {
+        return getNextRunTime(cronExpression, LocalDateTime.now(CHINA_ZONE));
+    }
+
+    /**
+     * 获取指定时间之后的下一次执行时间
+     *
+     * @return 下一次执行时间，表达式无效或不再触发时返回null
+     */
+    public LocalDateTime getNextRunTime(String cronExpression, LocalDateTime after) {
         try {
-            // 使用中国时区
-            ZoneId chinaZone = ZoneId.of("Asia/Shanghai");
-            ZonedDateTime now = ZonedDateTime.now(chinaZone);
-            ExecutionTime executionTime = ExecutionTime.forCron(cronParser.parse(cronExpression));
-            Optional<ZonedDateTime> nextExecution = executionTime.nextExecution(now);
-            
+            ExecutionTime executionTime = getExecutionTime(cronExpression);
+            Optional<ZonedDateTime> nextExecution = executionTime.nextExecution(after.atZone(CHINA_ZONE));
+
             return nextExecution.map(ZonedDateTime::toLocalDateTime).orElse(null);
         } catch (Exception e) {
             return null;
         }
     }
-    
+
+    /**
+     * 批量计算Cron任务在指定时间之后的下一次执行时间，相同表达式只计算一次
+     *
+     * @return 任务ID到下一次执行时间的映射，非Cron任务以及无法计算的任务不包含在结果中
+     */
+    public Map<String, LocalDateTime> getNextRunTimes(Collection<Task> tasks, LocalDateTime after) {
+        Map<String, LocalDateTime> nextRunTimes = new HashMap<>();
+        Map<String, LocalDateTime> byExpression = new HashMap<>();
+        for (Task task : tasks) {
+            if (!"cron".equals(task.getType()) || task.getCronExpression() == null) {
+                continue;
+            }
+            LocalDateTime nextRunTime = byExpression.computeIfAbsent(task.getCronExpression(),
+                    expression -> getNextRunTime(expression, after));
+            if (nextRunTime != null) {
+                nextRunTimes.put(task.getTaskId(), nextRunTime);
+            }
+        }
+        return nextRunTimes;
+    }
+
     /**
      * 验证Cron表达式是否有效
      */
     public boolean isValidCronExpression(String cronExpression) {
         try {
-            cronParser.parse(cronExpression);
+            getExecutionTime(cronExpression);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 获取编译后的Cron表达式，无效的表达式不会被缓存
+     */
+    private ExecutionTime getExecutionTime(String cronExpression) {
+        ExecutionTime executionTime = executionTimes.get(cronExpression);
+        if (executionTime == null) {
+            executionTime = ExecutionTime.forCron(cronParser.parse(cronExpression));
+            executionTimes.put(cronExpression, executionTime);
+        }
+        return executionTime;
+    }
+}
@@ -0,0 +1,25 @@
+package com.coze.timer.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UUIDv7(RFC 9562)格式的ID: 高48位为Unix毫秒时间戳，其余为随机数，
+ * 与原来的UUID字符串格式和长度相同，已有的表结构和接口不需要改动；随机数取自ThreadLocalRandom，不争用SecureRandom
+ */
+public class UuidV7IdGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return generate(System.currentTimeMillis()).toString();
+    }
+
+    static UUID generate(long epochMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (epochMillis & 0xFFFFFFFFFFFFL) << 16
+                | 0x7000L
+                | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
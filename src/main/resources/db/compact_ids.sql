@@ -0,0 +1,15 @@
+-- 任务ID和日志ID改为按时间递增的ID(timer.id.type)后的可选表结构调整
+-- uuid7与原有UUID同为36个字符，snowflake为16个字符，原列长度都能容纳，新旧ID可以共存，不需要迁移已有数据；
+-- ID只包含ASCII字符，改为ascii字符集和二进制排序后索引键更短、比较更快，task_id在各表的外键列需要同时修改
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+ALTER TABLE tasks MODIFY task_id VARCHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE task_assignment MODIFY task_id VARCHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE task_logs
+    MODIFY log_id VARCHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    MODIFY task_id VARCHAR(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -18,9 +18,12 @@ CREATE TABLE IF NOT EXISTS tasks (
     status VARCHAR(20) NOT NULL DEFAULT 'pending',
     next_run_time DATETIME NOT NULL,
     stop_condition TEXT,
+    version INT NOT NULL DEFAULT 0,
+    execution_count INT NOT NULL DEFAULT 0,
+    retry_count INT NOT NULL DEFAULT 0,
     created_at DATETIME NOT NULL,
     updated_at DATETIME NOT NULL,
-    INDEX idx_status (status),
+    INDEX idx_status_next_run_time (status, next_run_time),
     INDEX idx_next_run_time (next_run_time),
     INDEX idx_user_id (user_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -33,6 +36,7 @@ CREATE TABLE IF NOT EXISTS instances (
     port INT NOT NULL,
     status VARCHAR(20) NOT NULL DEFAULT 'active',
     last_heartbeat DATETIME NOT NULL,
+    lease_expires_at DATETIME,
     created_at DATETIME NOT NULL,
     updated_at DATETIME NOT NULL,
     UNIQUE KEY uk_instance_name (instance_name),
@@ -60,9 +64,10 @@ CREATE TABLE IF NOT EXISTS task_logs (
     user_id BIGINT NOT NULL,
     http_status INT,
     response_body TEXT,
+    response_body_gz MEDIUMBLOB COMMENT 'gzip压缩的响应内容',
     execution_time INT NOT NULL,
     created_at DATETIME NOT NULL,
-    INDEX idx_task_id (task_id),
+    INDEX idx_task_id_created_at (task_id, created_at),
     INDEX idx_created_at (created_at),
     FOREIGN KEY (task_id) REFERENCES tasks(task_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4; 
\ No newline at end of file
@@ -0,0 +1,53 @@
+-- 把task_logs改为按created_at范围分区的存储，配合 timer.log.storage=partitioned 使用
+-- 分区表的主键必须包含分区列，主键改为(created_at, log_id)，日志按时间顺序追加写入，避免随机主键造成的页分裂；
+-- 分区表不支持外键，去掉到tasks的外键
+-- 建表时只有MAXVALUE分区，按天/按月的分区由TaskLogRetention创建和删除，保留期外的分区整体删除
+
+CREATE TABLE task_logs_partitioned (
+    log_id VARCHAR(36) NOT NULL,
+    task_id VARCHAR(36) NOT NULL,
+    user_id BIGINT NOT NULL,
+    http_status INT,
+    response_body TEXT,
+    response_body_gz MEDIUMBLOB COMMENT 'gzip压缩的响应内容',
+    execution_time INT NOT NULL,
+    created_at DATETIME NOT NULL,
+    PRIMARY KEY (created_at, log_id),
+    INDEX idx_task_id_created_at (task_id, created_at),
+    INDEX idx_user_id (user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+PARTITION BY RANGE COLUMNS (created_at) (
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+-- 迁移起始时间，默认迁移全部日志(timer.log.retention.days默认为0，不清理日志)；
+-- 开启了保留期时可以改为保留期的起点，例如 DATE_SUB(CURDATE(), INTERVAL 30 DAY)，更早的日志留在task_logs_old中
+SET @migrate_since = '1970-01-01';
+
+-- 数据量大时按created_at分段执行
+INSERT INTO task_logs_partitioned
+    (log_id, task_id, user_id, http_status, response_body, response_body_gz, execution_time, created_at)
+SELECT log_id, task_id, user_id, http_status, response_body, response_body_gz, execution_time, created_at
+FROM task_logs
+WHERE created_at >= @migrate_since;
+
+-- 复制期间实例仍在写入日志，切换前锁住两张表补齐复制之后写入的日志，再在锁内改名，切换期间的日志不会丢失；
+-- 日志批量写入时created_at取执行时间，可能略早于已复制的最大时间，向前多取5分钟，重复的行由主键忽略。
+-- 也可以在复制前先停止所有实例，此时补齐步骤不会再有新数据
+SET @copied_until = (SELECT IFNULL(MAX(created_at), '1970-01-01') FROM task_logs_partitioned);
+
+LOCK TABLES task_logs WRITE, task_logs_partitioned WRITE;
+
+INSERT IGNORE INTO task_logs_partitioned
+    (log_id, task_id, user_id, http_status, response_body, response_body_gz, execution_time, created_at)
+SELECT log_id, task_id, user_id, http_status, response_body, response_body_gz, execution_time, created_at
+FROM task_logs
+WHERE created_at >= @copied_until - INTERVAL 5 MINUTE;
+
+-- MySQL 8.0.13起可以在LOCK TABLES中改名写锁定的表
+RENAME TABLE task_logs TO task_logs_old, task_logs_partitioned TO task_logs;
+
+UNLOCK TABLES;
+
+-- 确认新表正常写入后删除旧表
+-- DROP TABLE task_logs_old;
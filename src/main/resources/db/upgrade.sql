@@ -0,0 +1,25 @@
+-- 已有数据库的结构升级脚本，按顺序执行新增的部分
+
+-- 到期任务扫描使用(status, next_run_time)联合索引
+ALTER TABLE tasks DROP INDEX idx_status, ADD INDEX idx_status_next_run_time (status, next_run_time);
+
+-- 任务状态更新改为基于版本号的乐观并发控制
+ALTER TABLE tasks ADD COLUMN version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号' AFTER stop_condition;
+
+-- maxCnt停止条件改为基于任务表中的执行次数判断，按已有日志数初始化
+ALTER TABLE tasks ADD COLUMN execution_count INT NOT NULL DEFAULT 0 COMMENT '累计执行次数' AFTER version;
+UPDATE tasks t SET execution_count = (SELECT COUNT(*) FROM task_logs l WHERE l.task_id = t.task_id);
+
+-- 失败任务按指数退避重试，记录连续重试次数
+ALTER TABLE tasks ADD COLUMN retry_count INT NOT NULL DEFAULT 0 COMMENT '连续失败后已重试次数' AFTER execution_count;
+
+-- 实例改为基于租约的存活检测，租约到期时间使用数据库时间
+ALTER TABLE instance ADD COLUMN lease_expires_at DATETIME COMMENT '租约到期时间' AFTER last_heartbeat;
+
+-- 响应内容可以按配置压缩存储
+ALTER TABLE task_logs ADD COLUMN response_body_gz MEDIUMBLOB COMMENT 'gzip压缩的响应内容' AFTER response_body;
+
+-- 按任务查询最近的日志时按(task_id, created_at)索引有序读取；改用分区存储见task_logs_partitioned.sql
+ALTER TABLE task_logs DROP INDEX idx_task_id, ADD INDEX idx_task_id_created_at (task_id, created_at);
+
+-- 任务ID和日志ID改为按时间递增生成，ID列的可选调整见compact_ids.sql
@@ -22,10 +22,13 @@ CREATE TABLE IF NOT EXISTS tasks (
   status ENUM('pending', 'running', 'completed', 'failed', 'stopped') NOT NULL DEFAULT 'pending',
   next_run_time DATETIME,
   stop_condition TEXT COMMENT 'JSON格式中止条件',
+  version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
+  execution_count INT NOT NULL DEFAULT 0 COMMENT '累计执行次数',
+  retry_count INT NOT NULL DEFAULT 0 COMMENT '连续失败后已重试次数',
   created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
   updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   INDEX idx_user_id (user_id),
-  INDEX idx_status (status),
+  INDEX idx_status_next_run_time (status, next_run_time),
   INDEX idx_next_run_time (next_run_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -36,9 +39,10 @@ CREATE TABLE IF NOT EXISTS task_logs (
   user_id INT NOT NULL,
   http_status INT,
   response_body TEXT,
+  response_body_gz MEDIUMBLOB COMMENT 'gzip压缩的响应内容',
   execution_time INT COMMENT '执行耗时(毫秒)',
   created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
-  INDEX idx_task_id (task_id),
+  INDEX idx_task_id_created_at (task_id, created_at),
   INDEX idx_user_id (user_id),
   INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -63,6 +67,7 @@ CREATE TABLE IF NOT EXISTS instance (
   port INT DEFAULT 8080,
   status ENUM('active', 'inactive', 'maintenance') NOT NULL DEFAULT 'active',
   last_heartbeat DATETIME,
+  lease_expires_at DATETIME COMMENT '租约到期时间',
   created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
   updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   INDEX idx_status (status),
@@ -14,6 +14,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -107,6 +110,31 @@ public class TaskIntegrationTest {
         assertEquals("stopped", getResponse.getBody().getStatus());
     }
     
+    /**
+     * 测试批量创建任务，无效的请求单独返回失败
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateTasksBatch() {
+        TaskRequest invalid = createSampleOnceTaskRequest();
+        invalid.setMethod("PATCH");
+        List<TaskRequest> requests = Arrays.asList(createSampleOnceTaskRequest(), invalid, createSampleOnceTaskRequest());
+        
+        String url = "http://localhost:" + port + "/api/api/v1/tasks/batch";
+        ResponseEntity<Map> response = restTemplate.postForEntity(url, requests, Map.class);
+        
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        Map<String, Object> body = response.getBody();
+        assertNotNull(body);
+        assertEquals(3, body.get("total"));
+        assertEquals(2, body.get("succeeded"));
+        List<Map<String, Object>> results = (List<Map<String, Object>>) body.get("results");
+        assertEquals("success", results.get(0).get("status"));
+        assertNotNull(results.get(0).get("taskId"));
+        assertEquals("error", results.get(1).get("status"));
+        assertEquals("success", results.get(2).get("status"));
+    }
+    
     /**
      * 创建一个样例一次性任务请求
      */
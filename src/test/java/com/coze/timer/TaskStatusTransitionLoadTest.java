@@ -0,0 +1,147 @@
+package com.coze.timer;
+
+import com.coze.timer.mapper.TaskMapper;
+import com.coze.timer.model.Task;
+import com.coze.timer.model.dto.TaskResponse;
+import com.coze.timer.service.TaskService;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.core.DefaultLockingTaskExecutor;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.LockingTaskExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 任务状态变更吞吐量压测
+ * 对比全局ShedLock串行化(改造前)与按行乐观版本控制(改造后)在8个并发执行线程下每秒完成的状态变更数
+ * 运行方式: mvn test -Pload-test
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest
+@ActiveProfiles("test")
+public class TaskStatusTransitionLoadTest {
+
+    private static final int THREADS = 8;
+    private static final int TASKS = 64;
+    private static final long DURATION_SECONDS = 10;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskMapper taskMapper;
+
+    @Autowired
+    private LockProvider lockProvider;
+
+    private final List<String> taskIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task();
+            task.setTaskId(UUID.randomUUID().toString());
+            task.setUserId(1);
+            task.setType("interval");
+            task.setIntervalSeconds(60);
+            task.setHttpEndpoint("http://example.com/api/test");
+            task.setMethod("GET");
+            task.setStatus("pending");
+            task.setNextRunTime(LocalDateTime.now().plusMinutes(5));
+            taskMapper.insert(task);
+            taskIds.add(task.getTaskId());
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (String taskId : taskIds) {
+            taskMapper.deleteById(taskId);
+        }
+    }
+
+    @Test
+    public void testTransitionsPerSecond() throws InterruptedException {
+        // 改造前: 每次状态变更都经过名为updateTaskStatus的全局锁，且锁至少持有5秒，未拿到锁的调用被直接跳过
+        LockingTaskExecutor lockingExecutor = new DefaultLockingTaskExecutor(lockProvider);
+        double before = measure(taskId -> {
+            AtomicLong done = new AtomicLong();
+            lockingExecutor.executeWithLock((Runnable) () -> {
+                if ("success".equals(taskService.updateTaskStatus(taskId, "running").getStatus())) {
+                    done.incrementAndGet();
+                }
+            }, new LockConfiguration(Instant.now(), "updateTaskStatus",
+                    Duration.ofSeconds(30), Duration.ofSeconds(5)));
+            return done.get() > 0;
+        });
+
+        // 改造后: 按行版本号比较并更新，不同任务之间完全并发
+        double after = measure(taskId -> {
+            TaskResponse response = taskService.updateTaskStatus(taskId, "running");
+            return "success".equals(response.getStatus());
+        });
+
+        String summary = String.format("状态变更吞吐量(%d线程): 改造前 %.1f/s, 改造后 %.1f/s", THREADS, before, after);
+        log.info(summary);
+        assertTrue(after > before * 10, "乐观版本控制的吞吐量应显著高于全局锁，" + summary);
+    }
+
+    /**
+     * 在固定时长内由多个线程轮流对测试任务做状态变更，返回每秒成功次数
+     */
+    private double measure(Transition transition) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicLong succeeded = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(THREADS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        long start = System.nanoTime();
+
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            pool.execute(() -> {
+                try {
+                    int i = offset;
+                    while (System.nanoTime() < deadline) {
+                        if (transition.apply(taskIds.get(i % TASKS))) {
+                            succeeded.incrementAndGet();
+                        }
+                        i += THREADS;
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        finished.await();
+        pool.shutdown();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return succeeded.get() / seconds;
+    }
+
+    @FunctionalInterface
+    private interface Transition {
+        boolean apply(String taskId);
+    }
+}
@@ -0,0 +1,69 @@
+package com.coze.timer.executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CircuitBreakerRegistry 测试类
+ */
+@SpringBootTest(properties = {
+        "timer.executor.circuit-breaker.window-size=4",
+        "timer.executor.circuit-breaker.minimum-calls=4",
+        "timer.executor.circuit-breaker.failure-rate-threshold=50",
+        "timer.executor.circuit-breaker.open-duration-ms=200",
+        "timer.executor.circuit-breaker.half-open-calls=1"
+})
+@ActiveProfiles("test")
+public class CircuitBreakerRegistryTest {
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Test
+    public void testOpenHalfOpenAndClose() throws InterruptedException {
+        String host = "down.example.com";
+        circuitBreakerRegistry.record(host, true);
+        circuitBreakerRegistry.record(host, false);
+        circuitBreakerRegistry.record(host, false);
+        // 请求数未达到最小值时不熔断
+        assertEquals(0, circuitBreakerRegistry.tryAcquire(host));
+
+        circuitBreakerRegistry.record(host, true);
+        assertEquals(CircuitBreakerRegistry.State.OPEN, circuitBreakerRegistry.snapshot(host).getState());
+        long retryAfterMs = circuitBreakerRegistry.tryAcquire(host);
+        assertTrue(retryAfterMs > 0 && retryAfterMs <= 200);
+        // 其他主机不受影响
+        assertEquals(0, circuitBreakerRegistry.tryAcquire("up.example.com"));
+
+        // 打开时长过后放行一个探测请求，探测失败重新打开
+        Thread.sleep(250);
+        assertEquals(0, circuitBreakerRegistry.tryAcquire(host));
+        assertTrue(circuitBreakerRegistry.tryAcquire(host) > 0);
+        circuitBreakerRegistry.record(host, true);
+        assertEquals(CircuitBreakerRegistry.State.OPEN, circuitBreakerRegistry.snapshot(host).getState());
+
+        // 探测成功后关闭
+        Thread.sleep(250);
+        assertEquals(0, circuitBreakerRegistry.tryAcquire(host));
+        circuitBreakerRegistry.record(host, false);
+        assertEquals(CircuitBreakerRegistry.State.CLOSED, circuitBreakerRegistry.snapshot(host).getState());
+        assertEquals(0, circuitBreakerRegistry.tryAcquire(host));
+    }
+
+    @Test
+    public void testReset() {
+        String host = "flaky.example.com";
+        for (int i = 0; i < 4; i++) {
+            circuitBreakerRegistry.record(host, true);
+        }
+        assertTrue(circuitBreakerRegistry.tryAcquire(host) > 0);
+
+        assertTrue(circuitBreakerRegistry.reset(host));
+        assertNull(circuitBreakerRegistry.snapshot(host));
+        assertEquals(0, circuitBreakerRegistry.tryAcquire(host));
+    }
+}
@@ -0,0 +1,50 @@
+package com.coze.timer.executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EndpointThrottle 测试类
+ */
+@SpringBootTest(properties = {
+        "timer.executor.host-limit.capacity=2",
+        "timer.executor.host-limit.refill-rate=1",
+        "timer.executor.host-limit.max-in-flight=1",
+        "timer.executor.endpoint-limit.busy-retry-ms=500"
+})
+@ActiveProfiles("test")
+public class EndpointThrottleTest {
+
+    @Autowired
+    private EndpointThrottle endpointThrottle;
+
+    @Test
+    public void testPerHostLimits() {
+        EndpointThrottle.Permit first = endpointThrottle.tryAcquire("slow.example.com", 1);
+        assertTrue(first.isGranted());
+
+        // 同一主机并发已满
+        EndpointThrottle.Permit busy = endpointThrottle.tryAcquire("slow.example.com", 1);
+        assertFalse(busy.isGranted());
+        assertEquals(500, busy.getRetryAfterMs());
+
+        // 其他主机不受影响
+        EndpointThrottle.Permit other = endpointThrottle.tryAcquire("fast.example.com", 1);
+        assertTrue(other.isGranted());
+        other.release();
+
+        // 归还后可以再次执行，直到令牌用完
+        first.release();
+        EndpointThrottle.Permit second = endpointThrottle.tryAcquire("slow.example.com", 1);
+        assertTrue(second.isGranted());
+        second.release();
+
+        EndpointThrottle.Permit limited = endpointThrottle.tryAcquire("slow.example.com", 1);
+        assertFalse(limited.isGranted());
+        assertTrue(limited.getRetryAfterMs() > 0);
+    }
+}
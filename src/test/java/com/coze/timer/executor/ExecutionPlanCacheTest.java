@@ -0,0 +1,73 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ExecutionPlanCache 测试类
+ */
+public class ExecutionPlanCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionPlanCache executionPlanCache;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executionPlanCache = new ExecutionPlanCache(new ObjectMapper(), new TimerMetrics(meterRegistry));
+        ReflectionTestUtils.setField(executionPlanCache, "planCacheSize", 2);
+        executionPlanCache.init();
+    }
+
+    @Test
+    public void testCapacityBounded() throws Exception {
+        ExecutionPlan first = executionPlanCache.get(newTask("task-1"));
+        executionPlanCache.get(newTask("task-2"));
+
+        // 达到上限后新任务的计划照常编译，但不进入缓存
+        assertNotNull(executionPlanCache.get(newTask("task-3")));
+        assertEquals(2, executionPlanCache.size());
+        assertEquals(2, meterRegistry.get("timer.executor.plan-cache.size").gauge().value());
+
+        // 已缓存的任务仍然命中
+        assertSame(first, executionPlanCache.get(newTask("task-1")));
+
+        // 已缓存的任务定义变化时替换为新的计划
+        Task changed = newTask("task-2");
+        changed.setRequestBody("{\"key\":\"changed\"}");
+        ExecutionPlan recompiled = executionPlanCache.get(changed);
+        assertSame(recompiled, executionPlanCache.get(changed));
+        assertEquals(2, executionPlanCache.size());
+    }
+
+    @Test
+    public void testRetainAll() throws Exception {
+        executionPlanCache.get(newTask("task-1"));
+        executionPlanCache.get(newTask("task-2"));
+
+        executionPlanCache.retainAll(Collections.singleton("task-2"));
+        assertEquals(1, executionPlanCache.size());
+
+        // 清理后腾出的位置可以缓存新任务
+        ExecutionPlan plan = executionPlanCache.get(newTask("task-3"));
+        assertSame(plan, executionPlanCache.get(newTask("task-3")));
+    }
+
+    private Task newTask(String taskId) {
+        Task task = new Task();
+        task.setTaskId(taskId);
+        task.setHttpEndpoint("http://example.com/api/test");
+        task.setMethod("POST");
+        task.setRequestBody("{\"key\":\"value\"}");
+        return task;
+    }
+}
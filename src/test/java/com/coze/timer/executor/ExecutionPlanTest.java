@@ -0,0 +1,84 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.model.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Request;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ExecutionPlan 测试类
+ */
+public class ExecutionPlanTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Task newTask() {
+        Task task = new Task();
+        task.setTaskId("plan-test");
+        task.setHttpEndpoint("http://example.com/api/test?from=timer");
+        task.setMethod("POST");
+        task.setHeaders("{\"X-Token\":\"abc\",\"Content-Type\":\"application/json\"}");
+        task.setRequestBody("{\"key\":\"值\"}");
+        task.setStopCondition("{\"maxCnt\":300}");
+        return task;
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        ExecutionPlan plan = ExecutionPlan.compile(newTask(), objectMapper);
+        Request request = plan.getRequest();
+
+        assertEquals("POST", request.method());
+        assertEquals("timer", request.url().queryParameter("from"));
+        assertEquals("abc", request.header("X-Token"));
+        assertTrue(plan.hasStopCondition());
+        assertEquals(Integer.valueOf(300), plan.getMaxCount());
+
+        // 预先编码的请求体可以被重复写出
+        for (int i = 0; i < 2; i++) {
+            Buffer buffer = new Buffer();
+            request.body().writeTo(buffer);
+            assertEquals("{\"key\":\"值\"}", buffer.readUtf8());
+        }
+    }
+
+    @Test
+    public void testCompileWithoutOptionalFields() throws Exception {
+        Task task = newTask();
+        task.setMethod("GET");
+        task.setHeaders("null");
+        task.setRequestBody(null);
+        task.setStopCondition(null);
+
+        ExecutionPlan plan = ExecutionPlan.compile(task, objectMapper);
+        assertEquals("GET", plan.getRequest().method());
+        assertNull(plan.getRequest().body());
+        assertFalse(plan.hasStopCondition());
+        assertNull(plan.getMaxCount());
+    }
+
+    @Test
+    public void testInvalidUrl() {
+        Task task = newTask();
+        task.setHttpEndpoint("not a url");
+        assertThrows(IllegalArgumentException.class, () -> ExecutionPlan.compile(task, objectMapper));
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+        Task task = newTask();
+        ExecutionPlan plan = ExecutionPlan.compile(task, objectMapper);
+        assertTrue(plan.matches(task));
+
+        // 状态和时间字段变化不影响执行计划
+        task.setStatus("running");
+        task.setVersion(5);
+        assertTrue(plan.matches(task));
+
+        task.setStopCondition("{\"maxCnt\":10}");
+        assertFalse(plan.matches(task));
+    }
+}
@@ -0,0 +1,55 @@
+package com.coze.timer.executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HttpTaskExecutor 接纳控制测试类
+ */
+@SpringBootTest(properties = {
+        "timer.executor.mode=blocking",
+        "timer.executor.http-pool-size=2",
+        "timer.executor.queue-capacity=3",
+        "timer.executor.rate-limiter.enabled=true",
+        "timer.executor.rate-limiter.capacity=2",
+        "timer.executor.rate-limiter.refill-rate=1"
+})
+@ActiveProfiles("test")
+public class HttpTaskExecutorAdmissionTest {
+
+    @Autowired
+    private HttpTaskExecutor httpTaskExecutor;
+
+    @Test
+    public void testReserveAndRelease() {
+        // 接纳上限为线程数加队列容量
+        assertEquals(5, httpTaskExecutor.availableCapacity());
+
+        assertEquals(3, httpTaskExecutor.reserve(3));
+        // 剩余容量不足时只预留剩余的部分
+        assertEquals(2, httpTaskExecutor.reserve(5));
+        assertEquals(0, httpTaskExecutor.reserve(1));
+        assertEquals(0, httpTaskExecutor.availableCapacity());
+
+        httpTaskExecutor.release(4);
+        assertEquals(4, httpTaskExecutor.availableCapacity());
+
+        httpTaskExecutor.release(1);
+        assertEquals(5, httpTaskExecutor.availableCapacity());
+    }
+
+    @Test
+    public void testRefundUnusedPermits() {
+        assertTrue(httpTaskExecutor.tryAcquire());
+        assertTrue(httpTaskExecutor.tryAcquire());
+        assertFalse(httpTaskExecutor.tryAcquire());
+
+        // 获取许可后未执行的任务归还许可，不占用全局限流额度
+        httpTaskExecutor.refund(1);
+        assertTrue(httpTaskExecutor.tryAcquire());
+    }
+}
@@ -0,0 +1,139 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.mapper.TaskLogMapper;
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.Task;
+import com.coze.timer.model.dto.TaskResponse;
+import com.coze.timer.service.TaskService;
+import com.coze.timer.util.UuidV7IdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HttpTaskExecutor 重试耗尽后的处理测试类
+ * 目标地址不可连接，每次执行都以IOException失败
+ */
+public class HttpTaskExecutorRetryTest {
+
+    private static final String UNREACHABLE = "http://127.0.0.1:1/callback";
+
+    private final List<String> statusUpdates = new CopyOnWriteArrayList<>();
+    private TaskLogWriter taskLogWriter;
+    private HttpTaskExecutor httpTaskExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        TimerMetrics timerMetrics = new TimerMetrics(new SimpleMeterRegistry());
+        taskLogWriter = new TaskLogWriter(stub(TaskLogMapper.class), timerMetrics);
+        ReflectionTestUtils.setField(taskLogWriter, "queueCapacity", 100);
+        ReflectionTestUtils.setField(taskLogWriter, "batchSize", 10);
+        ReflectionTestUtils.setField(taskLogWriter, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(taskLogWriter, "overflowPolicy", "drop");
+        taskLogWriter.init();
+
+        ExecutionPlanCache executionPlanCache = new ExecutionPlanCache(new ObjectMapper(), timerMetrics);
+        ReflectionTestUtils.setField(executionPlanCache, "planCacheSize", 100);
+        executionPlanCache.init();
+
+        ResponseCapture responseCapture = new ResponseCapture();
+        ReflectionTestUtils.setField(responseCapture, "captureMode", "all");
+        ReflectionTestUtils.setField(responseCapture, "maxBytes", 1024);
+
+        httpTaskExecutor = new HttpTaskExecutor(stub(TaskService.class), taskLogWriter, executionPlanCache, timerMetrics, new RetryPolicy(),
+                new CircuitBreakerRegistry(timerMetrics), responseCapture, new UuidV7IdGenerator());
+        ReflectionTestUtils.setField(httpTaskExecutor, "executorMode", "blocking");
+        ReflectionTestUtils.setField(httpTaskExecutor, "httpPoolSize", 2);
+        ReflectionTestUtils.setField(httpTaskExecutor, "queueCapacity", 2);
+        ReflectionTestUtils.setField(httpTaskExecutor, "connectTimeout", 1000);
+        ReflectionTestUtils.setField(httpTaskExecutor, "requestTimeout", 1000);
+        ReflectionTestUtils.setField(httpTaskExecutor, "retryCount", 3);
+        ReflectionTestUtils.setField(httpTaskExecutor, "rateLimiterEnabled", false);
+        httpTaskExecutor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        httpTaskExecutor.shutdown();
+        taskLogWriter.shutdown();
+    }
+
+    @Test
+    public void testRecurringTaskKeepsScheduleAfterRetriesExhausted() throws Exception {
+        LocalDateTime nextRunTime = LocalDateTime.now().plusMinutes(1).withNano(0);
+        Task task = task("interval", nextRunTime);
+
+        assertEquals(1, httpTaskExecutor.reserve(1));
+        LocalDateTime result = httpTaskExecutor.executeClaimedAsync(task).get(10, TimeUnit.SECONDS);
+
+        // 网络异常重试耗尽后周期任务按原计划继续执行，不置为失败
+        assertEquals(nextRunTime, result);
+        assertFalse(statusUpdates.contains("failed"));
+    }
+
+    @Test
+    public void testOnceTaskFailsAfterRetriesExhausted() throws Exception {
+        Task task = task("once", null);
+
+        assertEquals(1, httpTaskExecutor.reserve(1));
+        LocalDateTime result = httpTaskExecutor.executeClaimedAsync(task).get(10, TimeUnit.SECONDS);
+
+        assertNull(result);
+        assertTrue(statusUpdates.contains("failed"));
+    }
+
+    private Task task(String type, LocalDateTime nextRunTime) {
+        Task task = new Task();
+        task.setTaskId(type + "-retry-task");
+        task.setUserId(1);
+        task.setType(type);
+        task.setIntervalSeconds("interval".equals(type) ? 60 : null);
+        task.setHttpEndpoint(UNREACHABLE);
+        task.setMethod("GET");
+        task.setStatus("running");
+        task.setNextRunTime(nextRunTime);
+        task.setExecutionCount(1);
+        // 已用完全部重试次数
+        task.setRetryCount(3);
+        return task;
+    }
+
+    /**
+     * 接口桩: 记录状态更新，批量写日志返回写入条数，其余方法返回默认值
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "updateTaskStatus":
+                    statusUpdates.add((String) args[1]);
+                    return TaskResponse.builder().status("success").taskId((String) args[0]).build();
+                case "insertBatch":
+                    return ((List<?>) args[0]).size();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + "Stub";
+                default:
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == int.class || returnType == long.class) {
+                        return returnType == int.class ? (Object) 0 : (Object) 0L;
+                    }
+                    return returnType == boolean.class ? false : null;
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.model.Task;
+import com.coze.timer.model.TaskLog;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseCapture 测试类
+ */
+public class ResponseCaptureTest {
+
+    private final ResponseCapture responseCapture = new ResponseCapture();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(responseCapture, "captureMode", "all");
+        ReflectionTestUtils.setField(responseCapture, "maxBytes", 8);
+        ReflectionTestUtils.setField(responseCapture, "successSampleRate", 3);
+        ReflectionTestUtils.setField(responseCapture, "compress", false);
+        ReflectionTestUtils.setField(responseCapture, "compressMinBytes", 16);
+    }
+
+    @Test
+    public void testReadTruncatesLargeBody() throws IOException {
+        Task task = new Task();
+        ResponseBody body = ResponseBody.create("0123456789abcdef", MediaType.get("text/plain; charset=utf-8"));
+        assertEquals("01234567" + ResponseCapture.TRUNCATED_SUFFIX, responseCapture.read(task, 200, body));
+
+        // 未超过上限时完整读取
+        ResponseBody small = ResponseBody.create("01234567", MediaType.get("text/plain"));
+        assertEquals("01234567", responseCapture.read(task, 200, small));
+    }
+
+    @Test
+    public void testSampling() {
+        ReflectionTestUtils.setField(responseCapture, "captureMode", "sampled");
+        Task task = new Task();
+        task.setExecutionCount(4);
+        // 非2xx响应总是记录
+        assertTrue(responseCapture.shouldCapture(task, 500));
+        assertFalse(responseCapture.shouldCapture(task, 200));
+        task.setExecutionCount(6);
+        assertTrue(responseCapture.shouldCapture(task, 200));
+
+        ReflectionTestUtils.setField(responseCapture, "captureMode", "errors");
+        assertFalse(responseCapture.shouldCapture(task, 204));
+        assertTrue(responseCapture.shouldCapture(task, 404));
+
+        ReflectionTestUtils.setField(responseCapture, "captureMode", "none");
+        assertFalse(responseCapture.shouldCapture(task, 500));
+    }
+
+    @Test
+    public void testCompressLargeBody() {
+        ReflectionTestUtils.setField(responseCapture, "compress", true);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            content.append("{\"status\":\"成功\"}");
+        }
+        TaskLog taskLog = responseCapture.apply(TaskLog.builder(), content.toString()).build();
+        assertNull(taskLog.getResponseBody());
+        assertNotNull(taskLog.getResponseBodyGzip());
+        assertTrue(taskLog.getResponseBodyGzip().length < content.length());
+        assertEquals(content.toString(), ResponseCapture.responseBodyOf(taskLog));
+
+        // 小于压缩阈值的内容按文本存储
+        TaskLog small = responseCapture.apply(TaskLog.builder(), "ok").build();
+        assertEquals("ok", small.getResponseBody());
+        assertNull(small.getResponseBodyGzip());
+        assertEquals("ok", ResponseCapture.responseBodyOf(small));
+    }
+}
@@ -0,0 +1,87 @@
+package com.coze.timer.executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RetryPolicy 测试类
+ */
+public class RetryPolicyTest {
+
+    private static final ZoneId CHINA_ZONE = ZoneId.of("Asia/Shanghai");
+
+    private final RetryPolicy retryPolicy = new RetryPolicy();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(retryPolicy, "baseDelayMs", 1000L);
+        ReflectionTestUtils.setField(retryPolicy, "maxDelayMs", 10000L);
+    }
+
+    @Test
+    public void testRetryableFailures() {
+        assertTrue(retryPolicy.isRetryable(500));
+        assertTrue(retryPolicy.isRetryable(503));
+        assertTrue(retryPolicy.isRetryable(429));
+        assertTrue(retryPolicy.isRetryable(408));
+        assertFalse(retryPolicy.isRetryable(200));
+        assertFalse(retryPolicy.isRetryable(404));
+
+        assertTrue(retryPolicy.isRetryable(new SocketTimeoutException("timeout")));
+        assertTrue(retryPolicy.isRetryable(new IOException("connection reset")));
+        assertFalse(retryPolicy.isRetryable(new IllegalArgumentException("无效的HTTP URL")));
+    }
+
+    @Test
+    public void testExponentialBackoffWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            long first = retryPolicy.backoffMillis(1);
+            assertTrue(first >= 500 && first <= 1000);
+            long third = retryPolicy.backoffMillis(3);
+            assertTrue(third >= 2000 && third <= 4000);
+            // 超过上限后不再增长
+            long capped = retryPolicy.backoffMillis(20);
+            assertTrue(capped >= 5000 && capped <= 10000);
+        }
+    }
+
+    @Test
+    public void testRetryAfter() {
+        assertEquals(Long.valueOf(120000), retryPolicy.parseRetryAfter("120"));
+        assertNull(retryPolicy.parseRetryAfter(null));
+        assertNull(retryPolicy.parseRetryAfter("soon"));
+
+        String date = ZonedDateTime.now(CHINA_ZONE).plusSeconds(60).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        Long waitMs = retryPolicy.parseRetryAfter(date);
+        assertNotNull(waitMs);
+        assertTrue(waitMs > 50000 && waitMs <= 60000);
+
+        // Retry-After比退避间隔长时以服务端要求为准
+        LocalDateTime retryTime = retryPolicy.nextRetryTime(1, "8");
+        assertFalse(retryTime.isBefore(LocalDateTime.now(CHINA_ZONE).plusSeconds(7)));
+        assertEquals(0, retryTime.getNano());
+    }
+
+    @Test
+    public void testRetryAfterCappedAtMaxDelay() {
+        // 超过重试间隔上限的Retry-After按上限计算
+        LocalDateTime limit = LocalDateTime.now(CHINA_ZONE).plusSeconds(11);
+        assertFalse(retryPolicy.nextRetryTime(1, "31536000").isAfter(limit));
+        assertFalse(retryPolicy.nextRetryTime(1, String.valueOf(Long.MAX_VALUE)).isAfter(limit));
+
+        String farFuture = ZonedDateTime.now(CHINA_ZONE).plusYears(1).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        LocalDateTime retryTime = retryPolicy.nextRetryTime(1, farFuture);
+        assertFalse(retryTime.isAfter(LocalDateTime.now(CHINA_ZONE).plusSeconds(11)));
+        assertFalse(retryTime.isBefore(LocalDateTime.now(CHINA_ZONE).plusSeconds(9)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.coze.timer.executor;
+
+import com.coze.timer.mapper.TaskLogMapper;
+import com.coze.timer.metrics.TimerMetrics;
+import com.coze.timer.model.TaskLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskLogWriter 测试类
+ */
+public class TaskLogWriterTest {
+
+    private static final String DELETED_TASK = "deleted-task";
+
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final AtomicInteger batchInserts = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private TaskLogWriter taskLogWriter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // 模拟外键约束: 批次中包含已删除任务的日志时整条语句失败
+        TaskLogMapper taskLogMapper = (TaskLogMapper) Proxy.newProxyInstance(
+                TaskLogMapper.class.getClassLoader(), new Class<?>[]{TaskLogMapper.class},
+                (proxy, method, args) -> {
+                    if (!"insertBatch".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    batchInserts.incrementAndGet();
+                    List<TaskLog> logs = (List<TaskLog>) args[0];
+                    for (TaskLog taskLog : logs) {
+                        if (DELETED_TASK.equals(taskLog.getTaskId())) {
+                            throw new IllegalStateException("foreign key constraint fails");
+                        }
+                    }
+                    for (TaskLog taskLog : logs) {
+                        written.add(taskLog.getTaskId());
+                    }
+                    return logs.size();
+                });
+        meterRegistry = new SimpleMeterRegistry();
+        taskLogWriter = new TaskLogWriter(taskLogMapper, new TimerMetrics(meterRegistry));
+        ReflectionTestUtils.setField(taskLogWriter, "queueCapacity", 100);
+        ReflectionTestUtils.setField(taskLogWriter, "batchSize", 100);
+        ReflectionTestUtils.setField(taskLogWriter, "flushIntervalMs", 200L);
+        ReflectionTestUtils.setField(taskLogWriter, "overflowPolicy", "drop");
+    }
+
+    @Test
+    public void testFailedBatchOnlyDropsFailingRows() {
+        taskLogWriter.init();
+        for (int i = 0; i < 16; i++) {
+            assertTrue(taskLogWriter.submit(taskLog(i == 5 ? DELETED_TASK : "task-" + i)));
+        }
+        taskLogWriter.shutdown();
+
+        // 只有已删除任务的日志写入失败，其余日志拆分后全部写入
+        assertEquals(15, written.size());
+        assertFalse(written.contains(DELETED_TASK));
+        assertEquals(15, count("timer.log.writer.written"));
+        assertEquals(1, count("timer.log.writer.failed"));
+        assertEquals(0, count("timer.log.writer.dropped"));
+        // 对半拆分，不需要逐条重试
+        assertTrue(batchInserts.get() < 16, "批次写入次数: " + batchInserts.get());
+    }
+
+    @Test
+    public void testBatchWrittenOnce() {
+        taskLogWriter.init();
+        for (int i = 0; i < 10; i++) {
+            taskLogWriter.submit(taskLog("task-" + i));
+        }
+        taskLogWriter.shutdown();
+
+        assertEquals(10, written.size());
+        assertEquals(0, count("timer.log.writer.failed"));
+    }
+
+    private long count(String name) {
+        return (long) meterRegistry.get(name).functionCounter().count();
+    }
+
+    private TaskLog taskLog(String taskId) {
+        return TaskLog.builder()
+                .taskId(taskId)
+                .httpStatus(200)
+                .build();
+    }
+}
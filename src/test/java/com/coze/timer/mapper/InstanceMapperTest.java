@@ -178,4 +178,62 @@ public class InstanceMapperTest {
         Instance deletedInstance = instanceMapper.findById(instance.getId());
         assertNull(deletedInstance);
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testLeaseRenewAndExpire() {
+        Instance instance = new Instance();
+        instance.setInstanceName("lease-instance");
+        instance.setIpAddress("127.0.0.1");
+        instance.setPort(8081);
+        instance.setStatus("active");
+        instanceMapper.insert(instance);
+        Long id = instanceMapper.findByName("lease-instance").getId();
+
+        // 没有租约的实例视为失效
+        assertTrue(containsId(instanceMapper.findInactiveInstances(10), id));
+        assertFalse(containsId(instanceMapper.findLiveInstances(10), id));
+
+        // 续约后存活
+        assertEquals(1, instanceMapper.renewLease(id, 90));
+        Instance renewed = instanceMapper.findById(id);
+        assertNotNull(renewed.getLeaseExpiresAt());
+        assertTrue(containsId(instanceMapper.findLiveInstances(10), id));
+        assertFalse(containsId(instanceMapper.findInactiveInstances(10), id));
+        // 租约未过期时不能被标记为失效
+        assertEquals(0, instanceMapper.expireInstance(id, 10));
+
+        // 租约已过期超过宽限期时失效
+        assertEquals(1, instanceMapper.renewLease(id, -20));
+        assertTrue(containsId(instanceMapper.findInactiveInstances(10), id));
+        assertEquals(1, instanceMapper.expireInstance(id, 10));
+        assertEquals("inactive", instanceMapper.findById(id).getStatus());
+        // 已被标记的实例不会重复标记
+        assertEquals(0, instanceMapper.expireInstance(id, 10));
+
+        // 失效实例续约后重新激活，维护状态的实例不能续约
+        assertEquals(1, instanceMapper.renewLease(id, 90));
+        assertEquals("active", instanceMapper.findById(id).getStatus());
+        instanceMapper.updateStatus(id, "maintenance");
+        assertEquals(0, instanceMapper.renewLease(id, 90));
+    }
+
+    @Test
+    public void testReleaseLease() {
+        Instance instance = new Instance();
+        instance.setInstanceName("release-instance");
+        instance.setIpAddress("127.0.0.1");
+        instance.setPort(8082);
+        instance.setStatus("active");
+        instanceMapper.insert(instance);
+        Long id = instanceMapper.findByName("release-instance").getId();
+        instanceMapper.renewLease(id, 90);
+
+        assertEquals(1, instanceMapper.releaseLease(id));
+        assertEquals("inactive", instanceMapper.findById(id).getStatus());
+        assertFalse(containsId(instanceMapper.findLiveInstances(10), id));
+    }
+
+    private static boolean containsId(List<Instance> instances, Long id) {
+        return instances.stream().anyMatch(instance -> id.equals(instance.getId()));
+    }
+}
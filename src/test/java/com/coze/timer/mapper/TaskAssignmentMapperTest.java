@@ -1,12 +1,16 @@
 package com.coze.timer.mapper;
 
 import com.coze.timer.model.TaskAssignment;
+import com.coze.timer.sharding.ConsistentHashRing;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -89,4 +93,92 @@ public class TaskAssignmentMapperTest {
         TaskAssignment deletedAssignment = taskAssignmentMapper.findByTaskId(assignment.getTaskId());
         assertNull(deletedAssignment);
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testInsertBatchAndReassign() {
+        TaskAssignment first = new TaskAssignment();
+        first.setTaskId(UUID.randomUUID().toString());
+        first.setInstanceId(1L);
+        TaskAssignment second = new TaskAssignment();
+        second.setTaskId(UUID.randomUUID().toString());
+        second.setInstanceId(1L);
+
+        assertEquals(2, taskAssignmentMapper.insertBatch(Arrays.asList(first, second)));
+        // 已分配的任务忽略
+        assertEquals(0, taskAssignmentMapper.insertBatch(Collections.singletonList(first)));
+
+        assertEquals(2, taskAssignmentMapper.reassign(Arrays.asList(first.getTaskId(), second.getTaskId()), 2L));
+        assertEquals(2L, taskAssignmentMapper.findByTaskId(first.getTaskId()).getInstanceId());
+        assertEquals(2L, taskAssignmentMapper.findByTaskId(second.getTaskId()).getInstanceId());
+    }
+
+    @Test
+    public void testFindPage() {
+        for (int i = 0; i < 3; i++) {
+            TaskAssignment assignment = new TaskAssignment();
+            assignment.setTaskId(UUID.randomUUID().toString());
+            assignment.setInstanceId(1L);
+            taskAssignmentMapper.insert(assignment);
+        }
+
+        // 按task_id顺序翻页，不重复也不遗漏
+        List<TaskAssignment> firstPage = taskAssignmentMapper.findPage(null, 2);
+        assertEquals(2, firstPage.size());
+        assertTrue(firstPage.get(0).getTaskId().compareTo(firstPage.get(1).getTaskId()) < 0);
+        List<TaskAssignment> nextPage = taskAssignmentMapper.findPage(firstPage.get(1).getTaskId(), 2);
+        assertFalse(nextPage.isEmpty());
+        assertTrue(nextPage.get(0).getTaskId().compareTo(firstPage.get(1).getTaskId()) > 0);
+    }
+
+    @Test
+    public void testReassignInstance() {
+        TaskAssignment first = new TaskAssignment();
+        first.setTaskId(UUID.randomUUID().toString());
+        first.setInstanceId(1L);
+        TaskAssignment other = new TaskAssignment();
+        other.setTaskId(UUID.randomUUID().toString());
+        other.setInstanceId(3L);
+        taskAssignmentMapper.insertBatch(Arrays.asList(first, other));
+
+        assertTrue(taskAssignmentMapper.reassignInstance(1L, 2L) >= 1);
+        assertEquals(2L, taskAssignmentMapper.findByTaskId(first.getTaskId()).getInstanceId());
+        assertEquals(3L, taskAssignmentMapper.findByTaskId(other.getTaskId()).getInstanceId());
+    }
+
+    @Test
+    public void testReassignByHashRange() {
+        Long deadInstanceId = 99L;
+        List<TaskAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            TaskAssignment assignment = new TaskAssignment();
+            assignment.setTaskId(UUID.randomUUID().toString());
+            assignment.setInstanceId(deadInstanceId);
+            assignments.add(assignment);
+        }
+        taskAssignmentMapper.insertBatch(assignments);
+
+        // 数据库中按CRC32区间计算的归属与哈希环一致
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList(1L, 2L, 3L), 160);
+        assertEquals(200, taskAssignmentMapper.reassignByHashRange(deadInstanceId, ring.segments()));
+        for (TaskAssignment assignment : assignments) {
+            assertEquals(ring.locate(assignment.getTaskId()),
+                    taskAssignmentMapper.findByTaskId(assignment.getTaskId()).getInstanceId());
+        }
+        assertTrue(taskAssignmentMapper.findByInstanceId(deadInstanceId).isEmpty());
+    }
+
+    @Test
+    public void testFindOwnedTaskIds() {
+        TaskAssignment owned = new TaskAssignment();
+        owned.setTaskId(UUID.randomUUID().toString());
+        owned.setInstanceId(1L);
+        TaskAssignment moved = new TaskAssignment();
+        moved.setTaskId(UUID.randomUUID().toString());
+        moved.setInstanceId(2L);
+        taskAssignmentMapper.insertBatch(Arrays.asList(owned, moved));
+
+        List<String> ownedTaskIds = taskAssignmentMapper.findOwnedTaskIds(1L,
+                Arrays.asList(owned.getTaskId(), moved.getTaskId(), UUID.randomUUID().toString()));
+        assertEquals(Collections.singletonList(owned.getTaskId()), ownedTaskIds);
+    }
+}
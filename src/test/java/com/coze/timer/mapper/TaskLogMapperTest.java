@@ -7,6 +7,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -46,6 +48,29 @@ public class TaskLogMapperTest {
         assertEquals(taskLog.getHttpStatus(), foundLog.getHttpStatus());
     }
 
+    @Test
+    public void testInsertBatch() {
+        // 创建同一任务的多条日志
+        String taskId = UUID.randomUUID().toString();
+        List<TaskLog> taskLogs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TaskLog taskLog = new TaskLog();
+            taskLog.setLogId(UUID.randomUUID().toString());
+            taskLog.setTaskId(taskId);
+            taskLog.setUserId(1);
+            taskLog.setHttpStatus(200);
+            taskLog.setResponseBody("{\"status\":\"success\"}");
+            taskLog.setExecutionTime(100 + i);
+            taskLog.setCreatedAt(LocalDateTime.now().withNano(0));
+            taskLogs.add(taskLog);
+        }
+
+        // 批量插入
+        int result = taskLogMapper.insertBatch(taskLogs);
+        assertEquals(3, result);
+        assertEquals(3, taskLogMapper.countByTaskId(taskId));
+    }
+
     @Test
     public void testFindByTaskId() {
         // 创建测试任务日志
@@ -80,4 +105,48 @@ public class TaskLogMapperTest {
         int count = taskLogMapper.countByTaskId(taskLog.getTaskId());
         assertEquals(1, count);
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testInsertCompressedResponseBody() {
+        // 压缩存储的响应内容写入BLOB列，文本列为空
+        byte[] compressed = {31, -117, 8, 0, 0, 0, 0, 0, 0, -1, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        TaskLog taskLog = new TaskLog();
+        taskLog.setLogId(UUID.randomUUID().toString());
+        taskLog.setTaskId(UUID.randomUUID().toString());
+        taskLog.setUserId(1);
+        taskLog.setHttpStatus(500);
+        taskLog.setResponseBodyGzip(compressed);
+        taskLog.setExecutionTime(100);
+        taskLogMapper.insert(taskLog);
+
+        TaskLog foundLog = taskLogMapper.findLatestByTaskId(taskLog.getTaskId());
+        assertNull(foundLog.getResponseBody());
+        assertArrayEquals(compressed, foundLog.getResponseBodyGzip());
+    }
+
+    @Test
+    public void testDeleteBefore() {
+        // 同一任务两天的日志
+        String taskId = UUID.randomUUID().toString();
+        LocalDateTime today = LocalDateTime.now().withNano(0);
+        List<TaskLog> taskLogs = new ArrayList<>();
+        for (LocalDateTime createdAt : new LocalDateTime[]{today.minusDays(1), today}) {
+            TaskLog taskLog = new TaskLog();
+            taskLog.setLogId(UUID.randomUUID().toString());
+            taskLog.setTaskId(taskId);
+            taskLog.setUserId(1);
+            taskLog.setHttpStatus(200);
+            taskLog.setExecutionTime(100);
+            taskLog.setCreatedAt(createdAt);
+            taskLogs.add(taskLog);
+        }
+        taskLogMapper.insertBatch(taskLogs);
+
+        assertEquals(2, taskLogMapper.countByTaskId(taskId));
+        LocalDateTime startOfToday = today.toLocalDate().atStartOfDay();
+
+        // 删除今天之前的日志
+        assertTrue(taskLogMapper.deleteBefore(startOfToday, 1000) >= 1);
+        assertEquals(1, taskLogMapper.countByTaskId(taskId));
+    }
+}
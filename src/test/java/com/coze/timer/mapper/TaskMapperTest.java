@@ -1,6 +1,9 @@
 package com.coze.timer.mapper;
 
+import com.coze.timer.model.Instance;
 import com.coze.timer.model.Task;
+import com.coze.timer.model.TaskAssignment;
+import org.apache.ibatis.cursor.Cursor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,6 +11,9 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,6 +30,12 @@ public class TaskMapperTest {
     @Autowired
     private TaskMapper taskMapper;
 
+    @Autowired
+    private InstanceMapper instanceMapper;
+
+    @Autowired
+    private TaskAssignmentMapper taskAssignmentMapper;
+
     @Test
     public void testInsertAndFindById() {
         // 创建测试任务
@@ -67,7 +79,7 @@ public class TaskMapperTest {
 
         // 更新状态
         LocalDateTime newNextRunTime = LocalDateTime.now().plusMinutes(10);
-        int result = taskMapper.updateStatus(task.getTaskId(), "running", newNextRunTime);
+        int result = taskMapper.updateStatus(task.getTaskId(), "running", newNextRunTime, null);
         assertEquals(1, result);
 
         // 验证更新结果
@@ -76,6 +88,34 @@ public class TaskMapperTest {
         assertEquals(newNextRunTime, updatedTask.getNextRunTime());
     }
 
+    @Test
+    public void testUpdateStatusWithVersion() {
+        // 创建测试任务
+        Task task = new Task();
+        task.setTaskId(UUID.randomUUID().toString());
+        task.setUserId(1);
+        task.setType("once");
+        task.setHttpEndpoint("http://example.com/api/test");
+        task.setMethod("GET");
+        task.setStatus("pending");
+        task.setNextRunTime(LocalDateTime.now().plusMinutes(5));
+        taskMapper.insert(task);
+        int version = taskMapper.findById(task.getTaskId()).getVersion();
+
+        // 版本一致时更新成功，版本号加1
+        assertEquals(1, taskMapper.updateStatus(task.getTaskId(), "running", null, version));
+        assertEquals(version + 1, taskMapper.findById(task.getTaskId()).getVersion());
+        assertEquals(1, taskMapper.findById(task.getTaskId()).getExecutionCount());
+
+        // 使用过期版本更新失败
+        assertEquals(0, taskMapper.updateStatus(task.getTaskId(), "completed", null, version));
+        assertEquals("running", taskMapper.findById(task.getTaskId()).getStatus());
+
+        // 非running的状态变更不累加执行次数
+        assertEquals(1, taskMapper.updateStatus(task.getTaskId(), "completed", null, version + 1));
+        assertEquals(1, taskMapper.findById(task.getTaskId()).getExecutionCount());
+    }
+
     @Test
     public void testDeleteById() {
         // 创建测试任务
@@ -99,22 +139,138 @@ public class TaskMapperTest {
     }
 
     @Test
-    public void testFindTasksToExecute() {
-        // 创建测试任务
+    public void testStreamDueTasksByInstance() throws Exception {
+        Instance instance = instanceMapper.findByName("test-instance");
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        for (int i = 0; i < 4; i++) {
+            Task task = new Task();
+            task.setTaskId(UUID.randomUUID().toString());
+            task.setUserId(1);
+            task.setType("interval");
+            task.setIntervalSeconds(10);
+            task.setHttpEndpoint("http://example.com/api/test");
+            task.setMethod("GET");
+            task.setStatus("pending");
+            task.setNextRunTime(i < 3 ? now.minusMinutes(3 - i) : now.plusMinutes(5));
+            taskMapper.insert(task);
+
+            TaskAssignment assignment = new TaskAssignment();
+            assignment.setTaskId(task.getTaskId());
+            assignment.setInstanceId(instance.getId());
+            taskAssignmentMapper.insert(assignment);
+        }
+
+        // 游标按下次执行时间顺序逐条返回到期任务
+        List<Task> streamed = new ArrayList<>();
+        try (Cursor<Task> cursor = taskMapper.streamDueTasksByInstance(instance.getId(), now)) {
+            cursor.forEach(streamed::add);
+        }
+        assertTrue(streamed.size() >= 3);
+        for (int i = 1; i < streamed.size(); i++) {
+            assertFalse(streamed.get(i).getNextRunTime().isBefore(streamed.get(i - 1).getNextRunTime()));
+            assertFalse(streamed.get(i).getNextRunTime().isAfter(now));
+        }
+    }
+
+    @Test
+    public void testLockAndAdvanceDueTasks() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
         Task task = new Task();
         task.setTaskId(UUID.randomUUID().toString());
         task.setUserId(1);
-        task.setType("once");
+        task.setType("interval");
+        task.setIntervalSeconds(30);
         task.setHttpEndpoint("http://example.com/api/test");
         task.setMethod("GET");
         task.setStatus("pending");
-        task.setNextRunTime(LocalDateTime.now().minusMinutes(5));
+        task.setNextRunTime(now.minusSeconds(1));
         taskMapper.insert(task);
 
-        // 查询待执行任务
-        List<Task> tasks = taskMapper.findTasksToExecute(null, LocalDateTime.now(), 10);
-        assertFalse(tasks.isEmpty());
-        assertEquals(task.getTaskId(), tasks.get(0).getTaskId());
+        // 锁定指定的到期任务
+        List<Task> locked = taskMapper.lockDueTasks(Collections.singletonList(task.getTaskId()), now, 10);
+        assertEquals(1, locked.size());
+
+        // 推进下次执行时间
+        LocalDateTime nextRunTime = now.plusSeconds(30);
+        locked.get(0).setNextRunTime(nextRunTime);
+        assertEquals(1, taskMapper.advanceClaimedTasks(locked));
+
+        Task claimedTask = taskMapper.findById(task.getTaskId());
+        assertEquals("running", claimedTask.getStatus());
+        assertEquals(nextRunTime, claimedTask.getNextRunTime());
+        assertEquals(1, claimedTask.getExecutionCount());
+
+        // 推进后不再是到期任务
+        assertTrue(taskMapper.lockDueTasks(Collections.singletonList(task.getTaskId()), now, 10).isEmpty());
+    }
+
+    @Test
+    public void testDeferTasks() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Task dueTask = new Task();
+        dueTask.setTaskId(UUID.randomUUID().toString());
+        dueTask.setUserId(1);
+        dueTask.setType("interval");
+        dueTask.setIntervalSeconds(30);
+        dueTask.setHttpEndpoint("http://example.com/api/test");
+        dueTask.setMethod("GET");
+        dueTask.setStatus("running");
+        dueTask.setNextRunTime(now.minusSeconds(1));
+        taskMapper.insert(dueTask);
+
+        // 已被推进到未来的任务不受影响
+        Task claimedTask = new Task();
+        claimedTask.setTaskId(UUID.randomUUID().toString());
+        claimedTask.setUserId(1);
+        claimedTask.setType("interval");
+        claimedTask.setIntervalSeconds(30);
+        claimedTask.setHttpEndpoint("http://example.com/api/test");
+        claimedTask.setMethod("GET");
+        claimedTask.setStatus("running");
+        claimedTask.setNextRunTime(now.plusSeconds(30));
+        taskMapper.insert(claimedTask);
+
+        Task deferDue = new Task();
+        deferDue.setTaskId(dueTask.getTaskId());
+        deferDue.setNextRunTime(now.plusSeconds(5));
+        Task deferClaimed = new Task();
+        deferClaimed.setTaskId(claimedTask.getTaskId());
+        deferClaimed.setNextRunTime(now.plusSeconds(5));
+
+        assertEquals(1, taskMapper.deferTasks(Arrays.asList(deferDue, deferClaimed), now));
+        assertEquals(now.plusSeconds(5), taskMapper.findById(dueTask.getTaskId()).getNextRunTime());
+        assertEquals(now.plusSeconds(30), taskMapper.findById(claimedTask.getTaskId()).getNextRunTime());
+    }
+
+    @Test
+    public void testUpdateRetry() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Task task = new Task();
+        task.setTaskId(UUID.randomUUID().toString());
+        task.setUserId(1);
+        task.setType("once");
+        task.setHttpEndpoint("http://example.com/api/test");
+        task.setMethod("GET");
+        task.setStatus("running");
+        task.setNextRunTime(now);
+        taskMapper.insert(task);
+
+        // 安排重试时同时更新重试次数和执行时间
+        assertEquals(1, taskMapper.updateRetry(task.getTaskId(), 1, now.plusSeconds(2)));
+        Task retried = taskMapper.findById(task.getTaskId());
+        assertEquals(1, retried.getRetryCount());
+        assertEquals(now.plusSeconds(2), retried.getNextRunTime());
+
+        // 清零重试次数不改变执行时间
+        assertEquals(1, taskMapper.updateRetry(task.getTaskId(), 0, null));
+        Task reset = taskMapper.findById(task.getTaskId());
+        assertEquals(0, reset.getRetryCount());
+        assertEquals(now.plusSeconds(2), reset.getNextRunTime());
+
+        // 已结束的任务不再安排重试
+        taskMapper.updateStatus(task.getTaskId(), "stopped", null, null);
+        assertEquals(0, taskMapper.updateRetry(task.getTaskId(), 1, now.plusSeconds(4)));
     }
 
     @Test
@@ -153,4 +309,30 @@ public class TaskMapperTest {
         int count = taskMapper.countRunningTasks(1);
         assertEquals(1, count);
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testInsertBatch() {
+        // 一条多行INSERT写入多个任务
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task();
+            task.setTaskId(UUID.randomUUID().toString());
+            task.setUserId(1);
+            task.setType("interval");
+            task.setHttpEndpoint("http://example.com/api/test/" + i);
+            task.setMethod("GET");
+            task.setIntervalSeconds(60);
+            task.setStatus("pending");
+            task.setNextRunTime(LocalDateTime.now().plusMinutes(5).withNano(0));
+            tasks.add(task);
+        }
+        assertEquals(3, taskMapper.insertBatch(tasks));
+
+        for (Task task : tasks) {
+            Task foundTask = taskMapper.findById(task.getTaskId());
+            assertNotNull(foundTask);
+            assertEquals(task.getHttpEndpoint(), foundTask.getHttpEndpoint());
+            assertEquals(task.getNextRunTime(), foundTask.getNextRunTime());
+        }
+    }
+}
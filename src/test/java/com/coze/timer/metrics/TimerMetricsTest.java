@@ -0,0 +1,55 @@
+package com.coze.timer.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TimerMetrics 测试类
+ */
+public class TimerMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TimerMetrics timerMetrics = new TimerMetrics(registry);
+
+    @Test
+    public void testRecordFireLag() {
+        timerMetrics.recordFireLag(Duration.ofMillis(250));
+        // 提前触发按0记录
+        timerMetrics.recordFireLag(Duration.ofMillis(-5));
+
+        Timer timer = registry.get("timer.task.fire.lag").timer();
+        assertEquals(2, timer.count());
+        assertEquals(250, timer.max(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    public void testRecordHttpLatencyByHost() {
+        timerMetrics.recordHttpLatency("a.example.com", 200, 30);
+        timerMetrics.recordHttpLatency("a.example.com", 503, 40);
+        timerMetrics.recordHttpLatency("b.example.com", 204, 50);
+        timerMetrics.recordHttpFailure("b.example.com");
+
+        assertEquals(1, registry.get("timer.http.latency").tags("host", "a.example.com", "outcome", "2xx").timer().count());
+        assertEquals(1, registry.get("timer.http.latency").tags("host", "a.example.com", "outcome", "5xx").timer().count());
+        assertEquals(1, registry.get("timer.http.latency").tags("host", "b.example.com").timer().count());
+        assertEquals(1, registry.get("timer.http.failures").tags("host", "b.example.com").counter().count(), 0.001);
+    }
+
+    @Test
+    public void testGauge() {
+        Deque<String> queue = new ArrayDeque<>();
+        timerMetrics.gauge("timer.test.depth", "测试队列深度", queue, Deque::size);
+        queue.add("a");
+        queue.add("b");
+
+        assertEquals(2, registry.get("timer.test.depth").gauge().value(), 0.001);
+    }
+}
@@ -0,0 +1,97 @@
+package com.coze.timer.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HierarchicalTimingWheel 测试类
+ */
+public class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_700_000_000_123L;
+
+    @Test
+    public void testFireNotBeforeDeadline() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, START);
+        Random random = new Random(42);
+        int total = 5000;
+        for (int i = 0; i < total; i++) {
+            // 覆盖毫秒、秒、分钟、小时各层以及超过一天的溢出区
+            long deadline = START + (long) (random.nextDouble() * 2 * 86_400_000L);
+            wheel.schedule("task-" + i, deadline, deadline);
+        }
+
+        int fired = 0;
+        long maxLag = 0;
+        for (long now = START; now <= START + 2 * 86_400_000L + 1000; now += 7) {
+            for (Long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "条目不能早于到期时间触发");
+                maxLag = Math.max(maxLag, now - deadline);
+                fired++;
+            }
+        }
+
+        assertEquals(total, fired);
+        assertEquals(0, wheel.size());
+        assertTrue(maxLag < 100, "触发延迟应小于100ms, 实际: " + maxLag);
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, START);
+        wheel.schedule("overdue", START - 5000, "overdue");
+
+        List<String> fired = wheel.advance(START);
+        assertEquals(Collections.singletonList("overdue"), fired);
+    }
+
+    @Test
+    public void testRescheduleAndCancel() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, START);
+        wheel.schedule("a", START + 1000, "first");
+        wheel.schedule("a", START + 3000, "second");
+        wheel.schedule("b", START + 2000, "b");
+        assertEquals(2, wheel.size());
+
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+
+        assertTrue(wheel.advance(START + 2500).isEmpty());
+        assertEquals(Collections.singletonList("second"), wheel.advance(START + 3010));
+    }
+
+    @Test
+    public void testRetainAll() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, START);
+        wheel.schedule("a", START + 1000, "a");
+        wheel.schedule("b", START + 120_000, "b");
+        wheel.schedule("c", START + 7_200_000, "c");
+
+        assertEquals(2, wheel.retainAll(Collections.singleton("b")));
+        assertEquals(1, wheel.size());
+        assertNull(wheel.deadlineOf("a"));
+        assertEquals(Long.valueOf(START + 120_000), wheel.deadlineOf("b"));
+    }
+
+    @Test
+    public void testKeysSnapshot() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, START);
+        wheel.schedule("a", START + 1000, "a");
+        wheel.schedule("b", START + 7_200_000, "b");
+
+        Set<String> keys = wheel.keys();
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), keys);
+        // 快照不随时间轮变化
+        wheel.cancel("a");
+        assertEquals(2, keys.size());
+        assertEquals(Collections.singleton("b"), wheel.keys());
+    }
+}
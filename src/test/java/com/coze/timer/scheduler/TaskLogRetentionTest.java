@@ -0,0 +1,76 @@
+package com.coze.timer.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskLogRetention 分区计算测试类
+ */
+public class TaskLogRetentionTest {
+
+    private final TaskLogRetention retention = new TaskLogRetention(null);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(retention, "granularity", "day");
+        ReflectionTestUtils.setField(retention, "premake", 2);
+        ReflectionTestUtils.setField(retention, "retentionDays", 3);
+    }
+
+    @Test
+    public void testMissingDailyPartitions() {
+        LocalDate today = LocalDate.of(2024, 2, 28);
+
+        // 已有分区之后补齐到今天之后2天
+        List<String[]> missing = retention.missingPartitions(Arrays.asList("p20240227", "pmax"), today);
+        assertEquals(3, missing.size());
+        assertEquals("p20240228", missing.get(0)[0]);
+        assertEquals("2024-02-29 00:00:00", missing.get(0)[1]);
+        assertEquals("p20240301", missing.get(2)[0]);
+        assertEquals("2024-03-02 00:00:00", missing.get(2)[1]);
+
+        // 还没有按日期的分区时从保留期起点开始
+        missing = retention.missingPartitions(Arrays.asList("pmax"), today);
+        assertEquals("p20240225", missing.get(0)[0]);
+        assertEquals(6, missing.size());
+
+        // 已预建足够的分区时不再创建
+        missing = retention.missingPartitions(Arrays.asList("p20240301", "pmax"), today);
+        assertTrue(missing.isEmpty());
+    }
+
+    @Test
+    public void testMissingMonthlyPartitions() {
+        ReflectionTestUtils.setField(retention, "granularity", "month");
+        ReflectionTestUtils.setField(retention, "premake", 1);
+
+        List<String[]> missing = retention.missingPartitions(Arrays.asList("p20241101", "pmax"),
+                LocalDate.of(2024, 12, 15));
+        assertEquals(2, missing.size());
+        assertEquals("p20241201", missing.get(0)[0]);
+        assertEquals("2025-01-01 00:00:00", missing.get(0)[1]);
+        assertEquals("p20250101", missing.get(1)[0]);
+        assertEquals("2025-02-01 00:00:00", missing.get(1)[1]);
+    }
+
+    @Test
+    public void testExpiredPartitions() {
+        List<String> names = Arrays.asList("p20240224", "p20240225", "p20240226", "pmax");
+
+        // 上界不晚于保留期起点的分区整体过期，MAXVALUE分区不删除
+        List<String> expired = retention.expiredPartitions(names, LocalDate.of(2024, 2, 26));
+        assertEquals(Arrays.asList("p20240224", "p20240225"), expired);
+
+        ReflectionTestUtils.setField(retention, "granularity", "month");
+        expired = retention.expiredPartitions(Arrays.asList("p20240101", "p20240201", "pmax"),
+                LocalDate.of(2024, 2, 26));
+        assertEquals(Arrays.asList("p20240101"), expired);
+    }
+}
@@ -0,0 +1,101 @@
+package com.coze.timer.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConsistentHashRing 测试类
+ */
+public class ConsistentHashRingTest {
+
+    private static final int TASKS = 60000;
+
+    @Test
+    public void testEvenDistribution() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), 160);
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < TASKS; i++) {
+            counts.merge(ring.locate(UUID.randomUUID().toString()), 1, Integer::sum);
+        }
+
+        assertEquals(6, counts.size());
+        // 每个实例分到的任务数与平均值的偏差不超过25%
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - TASKS / 6) < TASKS / 6 / 4, "分布不均: " + counts);
+        }
+    }
+
+    @Test
+    public void testMinimalMovementOnJoinAndLeave() {
+        ConsistentHashRing before = new ConsistentHashRing(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), 160);
+        ConsistentHashRing joined = new ConsistentHashRing(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L), 160);
+        ConsistentHashRing left = new ConsistentHashRing(Arrays.asList(1L, 2L, 3L, 4L, 5L), 160);
+
+        int movedOnJoin = 0;
+        int movedOnLeave = 0;
+        for (int i = 0; i < TASKS; i++) {
+            String taskId = UUID.randomUUID().toString();
+            Long owner = before.locate(taskId);
+            Long ownerAfterJoin = joined.locate(taskId);
+            if (!owner.equals(ownerAfterJoin)) {
+                // 新实例加入时任务只会迁移到新实例
+                assertEquals(7L, ownerAfterJoin);
+                movedOnJoin++;
+            }
+            Long ownerAfterLeave = left.locate(taskId);
+            if (!owner.equals(ownerAfterLeave)) {
+                // 实例离开时只迁移该实例的任务
+                assertEquals(6L, owner);
+                movedOnLeave++;
+            }
+        }
+
+        // 迁移量约为1/7和1/6
+        assertTrue(movedOnJoin < TASKS / 7 * 1.3, "加入时迁移过多: " + movedOnJoin);
+        assertTrue(movedOnLeave < TASKS / 6 * 1.3, "离开时迁移过多: " + movedOnLeave);
+    }
+
+    @Test
+    public void testSameMembersBuildSameRing() {
+        ConsistentHashRing a = new ConsistentHashRing(Arrays.asList(3L, 1L, 2L), 160);
+        ConsistentHashRing b = new ConsistentHashRing(Arrays.asList(1L, 2L, 3L), 160);
+        for (int i = 0; i < 1000; i++) {
+            String taskId = UUID.randomUUID().toString();
+            assertEquals(a.locate(taskId), b.locate(taskId));
+        }
+        assertNull(new ConsistentHashRing(Collections.<Long>emptyList(), 160).locate("task"));
+    }
+
+    @Test
+    public void testSegmentsMatchLocate() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList(1L, 2L, 3L), 160);
+        List<ConsistentHashRing.Segment> segments = ring.segments();
+        for (int i = 1; i < segments.size(); i++) {
+            assertTrue(segments.get(i).getUpperBound() > segments.get(i - 1).getUpperBound());
+            // 相邻区间归属不同实例
+            assertNotEquals(segments.get(i).getInstanceId(), segments.get(i - 1).getInstanceId());
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            String taskId = UUID.randomUUID().toString();
+            long position = ConsistentHashRing.position(taskId);
+            assertTrue(position >= 0 && position <= 0xFFFFFFFFL);
+            Long owner = segments.get(0).getInstanceId();
+            for (ConsistentHashRing.Segment segment : segments) {
+                if (position <= segment.getUpperBound()) {
+                    owner = segment.getInstanceId();
+                    break;
+                }
+            }
+            assertEquals(ring.locate(taskId), owner);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.coze.timer.sharding;
+
+import com.coze.timer.mapper.InstanceMapper;
+import com.coze.timer.model.Instance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InstanceRegistry 测试类
+ */
+public class InstanceRegistryTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final List<Instance> liveInstances = new ArrayList<>();
+    private InstanceLease instanceLease;
+    private InstanceRegistry instanceRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        InstanceMapper instanceMapper = (InstanceMapper) Proxy.newProxyInstance(
+                InstanceMapper.class.getClassLoader(), new Class<?>[]{InstanceMapper.class},
+                (proxy, method, args) -> {
+                    if ("findLiveInstances".equals(method.getName())) {
+                        queries.incrementAndGet();
+                        return new ArrayList<>(liveInstances);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        instanceLease = new InstanceLease(instanceMapper);
+        ReflectionTestUtils.setField(instanceLease, "leaseSeconds", 90);
+        ReflectionTestUtils.setField(instanceLease, "graceSeconds", 10);
+        instanceRegistry = new InstanceRegistry(instanceMapper, instanceLease);
+
+        liveInstances.add(instance(1L));
+        liveInstances.add(instance(2L));
+    }
+
+    @Test
+    public void testViewCachedUntilRefresh() {
+        holdLease(1L);
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), instanceRegistry.liveInstanceIds());
+
+        // 读取视图不访问数据库
+        instanceRegistry.liveInstanceIds();
+        assertEquals(1, queries.get());
+
+        // 刷新后反映实例变化
+        liveInstances.add(instance(3L));
+        instanceRegistry.refresh();
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), instanceRegistry.liveInstanceIds());
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void testLocalLeaseStateAppliedWithoutQuery() {
+        holdLease(1L);
+        instanceRegistry.refresh();
+
+        // 本地租约过期后当前实例立即退出分片，不需要重新查询
+        ReflectionTestUtils.setField(instanceLease, "renewedNanos", System.nanoTime() - 100_000_000_000L);
+        assertEquals(new HashSet<>(Arrays.asList(2L)), instanceRegistry.liveInstanceIds());
+
+        // 重新续约后恢复
+        holdLease(1L);
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), instanceRegistry.liveInstanceIds());
+        assertEquals(1, queries.get());
+    }
+
+    private void holdLease(Long instanceId) {
+        ReflectionTestUtils.setField(instanceLease, "instanceId", instanceId);
+        ReflectionTestUtils.setField(instanceLease, "renewedNanos", System.nanoTime());
+    }
+
+    private Instance instance(Long id) {
+        Instance instance = new Instance();
+        instance.setId(id);
+        instance.setInstanceName("timer-" + id);
+        instance.setStatus("active");
+        return instance;
+    }
+}
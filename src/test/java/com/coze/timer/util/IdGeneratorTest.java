@@ -0,0 +1,60 @@
+package com.coze.timer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IdGenerator 测试类
+ */
+public class IdGeneratorTest {
+
+    @Test
+    public void testUuidV7Format() {
+        long now = System.currentTimeMillis();
+        UUID uuid = UUID.fromString(new UuidV7IdGenerator().nextId());
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        // 高48位为毫秒时间戳
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(Math.abs(timestamp - now) < 1000);
+    }
+
+    @Test
+    public void testUuidV7OrderedByTime() {
+        String earlier = UuidV7IdGenerator.generate(1_700_000_000_000L).toString();
+        String later = UuidV7IdGenerator.generate(1_700_000_000_001L).toString();
+        assertTrue(earlier.compareTo(later) < 0);
+    }
+
+    @Test
+    public void testSnowflakeUniqueAndOrdered() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(() -> 1025L);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            ids.add(generator.nextId());
+        }
+        Set<String> unique = new HashSet<>(ids);
+        assertEquals(ids.size(), unique.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(16, ids.get(i).length());
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+
+        // 机器号取实例ID的低10位
+        long id = Long.parseLong(ids.get(0), 16);
+        assertEquals(1L, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & ((1L << SnowflakeIdGenerator.WORKER_BITS) - 1));
+    }
+
+    @Test
+    public void testSnowflakeRequiresInstance() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(() -> null);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+}
@@ -0,0 +1,57 @@
+package com.coze.timer.util;
+
+import com.coze.timer.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskScheduleUtil 测试类
+ */
+public class TaskScheduleUtilTest {
+
+    private final TaskScheduleUtil taskScheduleUtil = new TaskScheduleUtil();
+
+    private Task newTask(String taskId, String type, String cronExpression) {
+        Task task = new Task();
+        task.setTaskId(taskId);
+        task.setType(type);
+        task.setCronExpression(cronExpression);
+        return task;
+    }
+
+    @Test
+    public void testGetNextRunTimeAfter() {
+        LocalDateTime after = LocalDateTime.of(2025, 4, 22, 10, 15, 30);
+        assertEquals(LocalDateTime.of(2025, 4, 22, 11, 0, 0), taskScheduleUtil.getNextRunTime("0 0 * * * ?", after));
+        // 重复调用命中缓存，结果一致
+        assertEquals(LocalDateTime.of(2025, 4, 22, 11, 0, 0), taskScheduleUtil.getNextRunTime("0 0 * * * ?", after));
+        assertNull(taskScheduleUtil.getNextRunTime("invalid cron", after));
+    }
+
+    @Test
+    public void testGetNextRunTimes() {
+        LocalDateTime after = LocalDateTime.of(2025, 4, 22, 10, 15, 30);
+        Map<String, LocalDateTime> nextRunTimes = taskScheduleUtil.getNextRunTimes(Arrays.asList(
+                newTask("hourly-1", "cron", "0 0 * * * ?"),
+                newTask("hourly-2", "cron", "0 0 * * * ?"),
+                newTask("every-minute", "cron", "0 * * * * ?"),
+                newTask("invalid", "cron", "invalid cron"),
+                newTask("interval", "interval", null)), after);
+
+        assertEquals(3, nextRunTimes.size());
+        assertEquals(LocalDateTime.of(2025, 4, 22, 11, 0, 0), nextRunTimes.get("hourly-1"));
+        assertEquals(LocalDateTime.of(2025, 4, 22, 11, 0, 0), nextRunTimes.get("hourly-2"));
+        assertEquals(LocalDateTime.of(2025, 4, 22, 10, 16, 0), nextRunTimes.get("every-minute"));
+    }
+
+    @Test
+    public void testIsValidCronExpression() {
+        assertTrue(taskScheduleUtil.isValidCronExpression("0 */5 * * * ?"));
+        assertFalse(taskScheduleUtil.isValidCronExpression("invalid cron"));
+    }
+}